@@ -0,0 +1,42 @@
+package micycle.graphmorph;
+
+import java.util.Random;
+
+/**
+ * Deterministic simple polygons in two drawings for the polygon benchmarks.
+ * Graph pairs come from {@link GraphPairGenerator}.
+ */
+final class Fixtures {
+
+	/**
+	 * Simple polygon shapes for the polygon kernels.
+	 */
+	enum Polygon {
+		/** Convex polygon with slightly jittered radii. */
+		CONVEX,
+		/** Star polygon alternating between two radii; half the vertices are reflex. */
+		STAR
+	}
+
+	private Fixtures() {
+	}
+
+	/**
+	 * Writes the vertices of an n-gon into x and y, counter-clockwise in screen
+	 * coordinates. Different seeds give different drawings of the same polygon.
+	 */
+	static void polygon(final Polygon shape, final int n, final long seed, final int[] x, final int[] y) {
+		final Random random = new Random(seed);
+		final double radius = 8.0 * n;
+		final double phase = random.nextDouble() * Math.PI / n;
+		for (int i = 0; i < n; ++i) {
+			double r = radius * (0.98 + 0.02 * random.nextDouble());
+			if (shape == Polygon.STAR && (i & 1) == 1) {
+				r *= 0.5;
+			}
+			final double a = phase + 2.0 * Math.PI * i / n;
+			x[i] = (int) Math.round(radius + 10 + r * Math.cos(a));
+			y[i] = (int) Math.round(radius + 10 - r * Math.sin(a));
+		}
+	}
+}
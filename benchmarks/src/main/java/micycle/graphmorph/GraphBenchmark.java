@@ -0,0 +1,204 @@
+package micycle.graphmorph;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Graph kernels of the morph pipeline, on a graph pair of the given family and
+ * size that is triangulated once per trial. Benchmarks that consume their
+ * input take it from a nested state rebuilt before every invocation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GraphBenchmark {
+
+	private static final int QUERIES = 1024;
+	private static final int TOTAL_FRAMES = 100;
+
+	@Param({ "TRIANGULATION", "GRID", "NESTED_POLYGONS", "TREE", "STAR" })
+	public String family;
+
+	@Param({ "64", "256" })
+	public int vertices;
+
+	GraphPairGenerator pair;
+	MorphEngine engine;
+	private int[] queries;
+
+	@Setup
+	public void setup() {
+		this.pair = new GraphPairGenerator(GraphPairGenerator.Family.valueOf(this.family), this.vertices, 0);
+		this.engine = load(this.pair);
+		this.engine.triangulate();
+		this.engine.setBoundaryCount(4);
+		final GraphStore graph = this.engine.graphs[0];
+		int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE, maxX = Integer.MIN_VALUE, maxY = Integer.MIN_VALUE;
+		for (int v = 0; v < graph.vertexCount; ++v) {
+			minX = Math.min(minX, graph.x[v]);
+			maxX = Math.max(maxX, graph.x[v]);
+			minY = Math.min(minY, graph.y[v]);
+			maxY = Math.max(maxY, graph.y[v]);
+		}
+		final Random random = new Random(0);
+		this.queries = new int[4 * QUERIES];
+		for (int q = 0; q < QUERIES; ++q) {
+			// short segments, as tested when bending and inserting edges
+			final int x = minX + random.nextInt(maxX - minX + 1);
+			final int y = minY + random.nextInt(maxY - minY + 1);
+			this.queries[4 * q] = x;
+			this.queries[4 * q + 1] = y;
+			this.queries[4 * q + 2] = x + random.nextInt(81) - 40;
+			this.queries[4 * q + 3] = y + random.nextInt(81) - 40;
+		}
+	}
+
+	static MorphEngine load(final GraphPairGenerator pair) {
+		final MorphEngine engine = new MorphEngine();
+		pair.load(engine);
+		return engine;
+	}
+
+	/**
+	 * Graph pair with the bounding quadrilateral added, ready for face
+	 * enumeration.
+	 */
+	@State(Scope.Thread)
+	public static class Bounded {
+
+		MorphEngine engine;
+
+		@Setup(Level.Invocation)
+		public void setup(final GraphBenchmark bench) {
+			this.engine = load(bench.pair);
+			this.engine.primary = 0;
+			this.engine.addBoundary();
+		}
+	}
+
+	/**
+	 * Triangulated graph pair in which every fourth edge is listed twice, once
+	 * reversed.
+	 */
+	@State(Scope.Thread)
+	public static class Duplicated {
+
+		private int[][] links;
+		private int[] edgeCount;
+		MorphEngine engine;
+
+		@Setup(Level.Trial)
+		public void prepare(final GraphBenchmark bench) {
+			this.engine = bench.engine;
+			this.links = new int[2][];
+			this.edgeCount = new int[2];
+			for (int g = 0; g < 2; ++g) {
+				final GraphStore graph = this.engine.graphs[g];
+				final int count = graph.linkCount;
+				final int[] links = Arrays.copyOf(graph.links, 2 * (count + (count + 3) / 4));
+				int e = count;
+				for (int i = 0; i < count; i += 4) {
+					links[2 * e] = graph.links[2 * i + 1];
+					links[2 * e + 1] = graph.links[2 * i];
+					++e;
+				}
+				this.links[g] = links;
+				this.edgeCount[g] = graph.edgeCount;
+			}
+		}
+
+		@Setup(Level.Invocation)
+		public void setup() {
+			for (int g = 0; g < 2; ++g) {
+				final GraphStore graph = this.engine.graphs[g];
+				graph.ensureLinkCapacity(this.links[g].length / 2);
+				System.arraycopy(this.links[g], 0, graph.links, 0, this.links[g].length);
+				graph.linkCount = this.links[g].length / 2;
+				graph.edgeCount = this.edgeCount[g];
+			}
+		}
+	}
+
+	/**
+	 * Convex morph prepared for frame-by-frame solving with the given solver;
+	 * the frame cache is disabled.
+	 */
+	@State(Scope.Thread)
+	public static class Playback {
+
+		@Param({ "DIRECT", "ITERATIVE" })
+		public MorphEngine.Solver solver;
+
+		MorphEngine engine;
+		MorphFrame out;
+		int frame;
+
+		@Setup(Level.Trial)
+		public void setup(final GraphBenchmark bench) {
+			this.engine = load(bench.pair);
+			this.engine.triangulate();
+			this.engine.setBoundaryCount(4);
+			this.engine.setSolver(this.solver);
+			this.engine.setFrameCacheBudget(0);
+			this.engine.prepare(MorphEngine.Mode.CONVEX, TOTAL_FRAMES);
+			this.out = new MorphFrame();
+		}
+	}
+
+	@Benchmark
+	public int edgeCross() {
+		int crossings = 0;
+		for (int q = 0; q < 4 * QUERIES; q += 4) {
+			if (this.engine.edgeCross(this.queries[q], this.queries[q + 1], this.queries[q + 2], this.queries[q + 3], 0)) {
+				++crossings;
+			}
+		}
+		return crossings;
+	}
+
+	@Benchmark
+	public int preFindAllPoly(final Bounded state) {
+		state.engine.preFindAllPoly();
+		return state.engine.graphs[0].linkCount;
+	}
+
+	@Benchmark
+	public int removeRepeated(final Duplicated state) {
+		state.engine.removeRepeated();
+		return state.engine.graphs[0].linkCount;
+	}
+
+	@Benchmark
+	public Object calcFramesConvex() {
+		this.engine.calcFramesConvex();
+		return this.engine.system;
+	}
+
+	/**
+	 * One convex frame, stepping through the animation so the iterative solver
+	 * warm-starts from the previous frame as in playback.
+	 */
+	@Benchmark
+	public MorphFrame convexFrame(final Playback state) {
+		state.frame = state.frame == TOTAL_FRAMES ? 0 : state.frame + 1;
+		state.engine.frame(state.frame, TOTAL_FRAMES, state.out);
+		return state.out;
+	}
+}
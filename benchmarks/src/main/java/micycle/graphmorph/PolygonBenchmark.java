@@ -0,0 +1,74 @@
+package micycle.graphmorph;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Polygon kernels of the compatible triangulation: triangulating a face, and
+ * the Steiner overlay of two triangulations of the same polygon.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PolygonBenchmark {
+
+	@Param({ "CONVEX", "STAR" })
+	public String family;
+
+	@Param({ "64", "256", "1024" })
+	public int vertices;
+
+	private MorphEngine engine;
+	private int[] x0, y0, x1, y1;
+	private int[] nodes;
+	private int[][] triangles0, triangles1;
+	private int count0, count1;
+
+	@Setup
+	public void setup() {
+		final int n = this.vertices;
+		this.engine = new MorphEngine();
+		this.x0 = new int[n];
+		this.y0 = new int[n];
+		this.x1 = new int[n];
+		this.y1 = new int[n];
+		Fixtures.polygon(Fixtures.Polygon.valueOf(this.family), n, 0, this.x0, this.y0);
+		Fixtures.polygon(Fixtures.Polygon.valueOf(this.family), n, 1, this.x1, this.y1);
+		this.nodes = new int[n];
+		for (int i = 0; i < n; ++i) {
+			this.nodes[i] = i;
+		}
+		this.triangles0 = new int[n - 3][2];
+		this.triangles1 = new int[n - 3][2];
+		this.count0 = this.triangulate(this.x0, this.y0, this.triangles0);
+		this.count1 = this.triangulate(this.x1, this.y1, this.triangles1);
+	}
+
+	private int triangulate(final int[] x, final int[] y, final int[][] triangles) {
+		return this.engine.triangulate(this.nodes, this.vertices, triangles, 0, x, y);
+	}
+
+	@Benchmark
+	public int triangulate() {
+		return this.triangulate(this.x0, this.y0, this.triangles0);
+	}
+
+	@Benchmark
+	public int overlay() {
+		return new SteinerOverlay(this.vertices, this.triangles0, this.count0, this.triangles1, this.count1).crossings;
+	}
+}
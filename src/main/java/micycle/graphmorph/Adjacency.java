@@ -0,0 +1,224 @@
+package micycle.graphmorph;
+
+/**
+ * Compressed-sparse-row adjacency index of a graph.
+ * <p>
+ * The neighbours of vertex v are <code>neighbours[offsets[v]]</code> up to
+ * <code>neighbours[offsets[v + 1] - 1]</code>, ordered by the angle of the edge
+ * around v (the same order as <code>atan2(dx, dy)</code>). The order is decided
+ * with exact integer cross products, so it is stable for collinear and nearly
+ * collinear edges; only edges to a vertex with a sub-pixel position, such as a
+ * Steiner vertex, are compared in floating point. The index is a snapshot of
+ * the links and positions it was built from and must be rebuilt when either
+ * changes.
+ * <p>
+ * Each ring entry also records its half-edge: link e gives the half-edge 2e
+ * from <code>links[2e]</code> to <code>links[2e + 1]</code> and its twin 2e + 1
+ * the other way, so half-edge h leaves <code>links[h]</code> for
+ * <code>links[h ^ 1]</code>.
+ */
+final class Adjacency {
+
+	/**
+	 * Below this ring size neighbours are insertion sorted.
+	 */
+	private static final int INSERTION_SORT_THRESHOLD = 16;
+
+	/**
+	 * Start of the neighbour ring of vertex v; <code>offsets[vertexCount]</code>
+	 * is the total number of entries.
+	 */
+	final int[] offsets;
+	/**
+	 * Concatenated neighbour rings.
+	 */
+	final int[] neighbours;
+	/**
+	 * Half-edge from v to each neighbour, parallel to {@link #neighbours}.
+	 */
+	final int[] halfEdges;
+	final int vertexCount;
+
+	/**
+	 * Builds the index of a graph store from its own links and positions.
+	 */
+	Adjacency(final GraphStore graph) {
+		this(graph.x, graph.y, graph.subX, graph.subY, graph.vertexCount, graph.links, graph.linkCount);
+	}
+
+	/**
+	 * Builds the index of the given links, ordering each ring by the positions
+	 * in x and y. Self-loops are ignored.
+	 *
+	 * @param x           x positions of the vertices
+	 * @param y           y positions of the vertices
+	 * @param subX        sub-pixel parts of the x positions
+	 * @param subY        sub-pixel parts of the y positions
+	 * @param vertexCount number of vertices
+	 * @param links       flat link endpoints, <code>[2e]</code> and
+	 *                    <code>[2e + 1]</code>
+	 * @param linkCount   number of links
+	 */
+	Adjacency(final int[] x, final int[] y, final double[] subX, final double[] subY, final int vertexCount, final int[] links,
+			final int linkCount) {
+		this.vertexCount = vertexCount;
+		this.offsets = new int[vertexCount + 1];
+		for (int e = 0; e < linkCount; ++e) {
+			final int a = links[2 * e];
+			final int b = links[2 * e + 1];
+			if (a != b) {
+				++this.offsets[a + 1];
+				++this.offsets[b + 1];
+			}
+		}
+		for (int v = 0; v < vertexCount; ++v) {
+			this.offsets[v + 1] += this.offsets[v];
+		}
+		this.halfEdges = new int[this.offsets[vertexCount]];
+		final int[] fill = new int[vertexCount];
+		for (int e = 0; e < linkCount; ++e) {
+			final int a = links[2 * e];
+			final int b = links[2 * e + 1];
+			if (a != b) {
+				this.halfEdges[this.offsets[a] + fill[a]++] = 2 * e;
+				this.halfEdges[this.offsets[b] + fill[b]++] = 2 * e + 1;
+			}
+		}
+		int[] buffer = new int[0];
+		for (int v = 0; v < vertexCount; ++v) {
+			final int from = this.offsets[v];
+			final int to = this.offsets[v + 1];
+			if (to - from <= INSERTION_SORT_THRESHOLD) {
+				insertionSort(this.halfEdges, from, to, v, x, y, subX, subY, links);
+			} else {
+				if (buffer.length < to - from) {
+					buffer = new int[to - from];
+				}
+				mergeSort(this.halfEdges, from, to, buffer, v, x, y, subX, subY, links);
+			}
+		}
+		this.neighbours = new int[this.halfEdges.length];
+		for (int i = 0; i < this.halfEdges.length; ++i) {
+			this.neighbours[i] = links[this.halfEdges[i] ^ 1];
+		}
+	}
+
+	/**
+	 * Number of neighbours of vertex v.
+	 */
+	int degree(final int v) {
+		return this.offsets[v + 1] - this.offsets[v];
+	}
+
+	/**
+	 * The k-th neighbour of v in angular order, wrapping around the ring.
+	 */
+	int neighbour(final int v, final int k) {
+		final int degree = this.degree(v);
+		return this.neighbours[this.offsets[v] + ((k % degree) + degree) % degree];
+	}
+
+	/**
+	 * Position of u in the neighbour ring of v, or -1 if they are not adjacent.
+	 */
+	int indexOf(final int v, final int u) {
+		for (int i = this.offsets[v]; i < this.offsets[v + 1]; ++i) {
+			if (this.neighbours[i] == u) {
+				return i - this.offsets[v];
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Check if there is a link between two vertices, scanning the shorter ring.
+	 */
+	boolean isAdjacent(final int a, final int b) {
+		return this.degree(a) <= this.degree(b) ? this.indexOf(a, b) != -1 : this.indexOf(b, a) != -1;
+	}
+
+	private static void insertionSort(final int[] ring, final int from, final int to, final int v, final int[] x, final int[] y,
+			final double[] subX, final double[] subY, final int[] links) {
+		for (int i = from + 1; i < to; ++i) {
+			final int u = ring[i];
+			int j = i - 1;
+			while (j >= from && compareAngle(links[ring[j] ^ 1], links[u ^ 1], v, x, y, subX, subY) > 0) {
+				ring[j + 1] = ring[j];
+				--j;
+			}
+			ring[j + 1] = u;
+		}
+	}
+
+	private static void mergeSort(final int[] ring, final int from, final int to, final int[] buffer, final int v, final int[] x,
+			final int[] y, final double[] subX, final double[] subY, final int[] links) {
+		for (int width = INSERTION_SORT_THRESHOLD, i = from; i < to; i += width) {
+			insertionSort(ring, i, Math.min(i + width, to), v, x, y, subX, subY, links);
+		}
+		for (int width = INSERTION_SORT_THRESHOLD; width < to - from; width *= 2) {
+			for (int lo = from; lo < to - width; lo += 2 * width) {
+				final int mid = lo + width;
+				final int hi = Math.min(lo + 2 * width, to);
+				System.arraycopy(ring, lo, buffer, 0, mid - lo);
+				int i = 0, j = mid, k = lo;
+				while (i < mid - lo && j < hi) {
+					ring[k++] = compareAngle(links[ring[j] ^ 1], links[buffer[i] ^ 1], v, x, y, subX, subY) < 0 ? ring[j++] : buffer[i++];
+				}
+				while (i < mid - lo) {
+					ring[k++] = buffer[i++];
+				}
+			}
+		}
+	}
+
+	/**
+	 * Orders the edges (v, a) and (v, b) by <code>atan2(dx, dy)</code> without
+	 * evaluating it.
+	 */
+	private static int compareAngle(final int a, final int b, final int v, final int[] x, final int[] y, final double[] subX,
+			final double[] subY) {
+		final long ax = x[a] - (long) x[v];
+		final long ay = y[a] - (long) y[v];
+		final long bx = x[b] - (long) x[v];
+		final long by = y[b] - (long) y[v];
+		if (subX[a] != 0.0 || subY[a] != 0.0 || subX[b] != 0.0 || subY[b] != 0.0 || subX[v] != 0.0 || subY[v] != 0.0) {
+			return compareAngle(ax + (subX[a] - subX[v]), ay + (subY[a] - subY[v]), bx + (subX[b] - subX[v]), by + (subY[b] - subY[v]));
+		}
+		final int ha = half(ax, ay);
+		final int hb = half(bx, by);
+		if (ha != hb) {
+			return ha < hb ? -1 : 1;
+		}
+		return Long.signum(ax * by - ay * bx);
+	}
+
+	/**
+	 * Orders the directions a and b by <code>atan2(dx, dy)</code>, in floating
+	 * point.
+	 */
+	private static int compareAngle(final double ax, final double ay, final double bx, final double by) {
+		final int ha = half(ax, ay);
+		final int hb = half(bx, by);
+		if (ha != hb) {
+			return ha < hb ? -1 : 1;
+		}
+		return (int) Math.signum(ax * by - ay * bx);
+	}
+
+	/**
+	 * Angular sector of a direction: (-&pi;, 0), [0, &pi;) and &pi;.
+	 */
+	private static int half(final long dx, final long dy) {
+		if (dx < 0) {
+			return 0;
+		}
+		return dx == 0 && dy < 0 ? 2 : 1;
+	}
+
+	private static int half(final double dx, final double dy) {
+		if (dx < 0.0) {
+			return 0;
+		}
+		return dx == 0.0 && dy < 0.0 ? 2 : 1;
+	}
+}
@@ -0,0 +1,326 @@
+package micycle.graphmorph;
+
+/**
+ * Sparse form of the per-frame linear system of the convex morph.
+ * <p>
+ * Every interior vertex is placed at the convex combination of its neighbours
+ * given by the interpolated barycentric weights, while boundary vertices are
+ * fixed. This gives one row per interior vertex with a nonzero for each
+ * interior neighbour, and the boundary neighbours move to the right-hand side.
+ * The pattern is computed once per morph from the adjacency index, together
+ * with the weights of both drawings laid out in the order of the pattern, so
+ * that each frame assembles its values in one sequential pass.
+ * <p>
+ * Frames are solved either directly, with a sparse LU factorization whose
+ * symbolic phase is also done once per morph, or iteratively by Gauss-Seidel
+ * sweeps. The iterative path starts from the previous frame's
+ * solution, which is kept in double precision, so consecutive frames of a
+ * playback converge in a few sweeps.
+ */
+final class ConvexSystem {
+
+	/**
+	 * Upper bound on the sweeps of a single iterative solve.
+	 */
+	private static final int MAX_SWEEPS = 10000;
+
+	/**
+	 * Row of each interior vertex: interior[r] = vertex.
+	 */
+	final int[] interior;
+	/**
+	 * Inverse of {@link #interior}; -1 for boundary vertices.
+	 */
+	final int[] rowOf;
+	/**
+	 * Matrix pattern by row, in interior row numbers; the diagonal comes first.
+	 */
+	private final int[] rowPtr;
+	private final int[] cols;
+	/**
+	 * Boundary neighbours of each row, as vertex indices.
+	 */
+	private final int[] couplingPtr;
+	private final int[] coupling;
+	private final double[] values;
+	private final double[] couplingWeights;
+	/**
+	 * Weights of the initial and final drawing, parallel to the values and
+	 * coupling weights; the diagonal is -1 in both.
+	 */
+	private final double[] start, end;
+	private final double[] couplingStart, couplingEnd;
+	private final double[] rhsX;
+	private final double[] rhsY;
+	/**
+	 * Last solution by row, the starting point of the next iterative solve.
+	 */
+	private final double[] solutionX;
+	private final double[] solutionY;
+	/**
+	 * Starting point set by {@link #seed(int[], int[])}, shared with forks.
+	 */
+	private final double[] seedX;
+	private final double[] seedY;
+	/**
+	 * Boundary positions of the next solve, indexed by vertex, kept here so
+	 * that callers fill them without allocating a frame's worth of arrays.
+	 */
+	final double[] boundaryX;
+	final double[] boundaryY;
+	/**
+	 * Created on the first direct solve.
+	 */
+	private SparseLU lu;
+
+	/**
+	 * @param adjacency   neighbour index of the triangulated graph
+	 * @param lamda0      weights of the initial drawing, one per adjacency entry
+	 * @param lamda1      weights of the final drawing, one per adjacency entry
+	 * @param borderNodes vertices of the outer boundary
+	 * @param bc          number of boundary vertices
+	 */
+	ConvexSystem(final Adjacency adjacency, final double[] lamda0, final double[] lamda1, final int[] borderNodes, final int bc) {
+		final int n = adjacency.vertexCount;
+		this.rowOf = new int[n];
+		for (int k = 0; k < bc; ++k) {
+			this.rowOf[borderNodes[k]] = -1;
+		}
+		int m = 0;
+		for (int v = 0; v < n; ++v) {
+			if (this.rowOf[v] == 0) {
+				this.rowOf[v] = m++;
+			} else {
+				this.rowOf[v] = -1;
+			}
+		}
+		this.interior = new int[m];
+		for (int v = 0; v < n; ++v) {
+			if (this.rowOf[v] != -1) {
+				this.interior[this.rowOf[v]] = v;
+			}
+		}
+		this.rowPtr = new int[m + 1];
+		this.couplingPtr = new int[m + 1];
+		for (int r = 0; r < m; ++r) {
+			int inner = 1;
+			int outer = 0;
+			for (int k = adjacency.offsets[this.interior[r]]; k < adjacency.offsets[this.interior[r] + 1]; ++k) {
+				if (this.rowOf[adjacency.neighbours[k]] == -1) {
+					++outer;
+				} else {
+					++inner;
+				}
+			}
+			this.rowPtr[r + 1] = this.rowPtr[r] + inner;
+			this.couplingPtr[r + 1] = this.couplingPtr[r] + outer;
+		}
+		this.cols = new int[this.rowPtr[m]];
+		this.coupling = new int[this.couplingPtr[m]];
+		this.start = new double[this.cols.length];
+		this.end = new double[this.cols.length];
+		this.couplingStart = new double[this.coupling.length];
+		this.couplingEnd = new double[this.coupling.length];
+		for (int r = 0; r < m; ++r) {
+			int inner = this.rowPtr[r];
+			int outer = this.couplingPtr[r];
+			this.start[inner] = -1.0;
+			this.end[inner] = -1.0;
+			this.cols[inner++] = r;
+			for (int k = adjacency.offsets[this.interior[r]]; k < adjacency.offsets[this.interior[r] + 1]; ++k) {
+				final int u = adjacency.neighbours[k];
+				if (this.rowOf[u] == -1) {
+					this.couplingStart[outer] = lamda0[k];
+					this.couplingEnd[outer] = lamda1[k];
+					this.coupling[outer++] = u;
+				} else {
+					this.start[inner] = lamda0[k];
+					this.end[inner] = lamda1[k];
+					this.cols[inner++] = this.rowOf[u];
+				}
+			}
+		}
+		this.values = new double[this.cols.length];
+		this.couplingWeights = new double[this.coupling.length];
+		this.rhsX = new double[m];
+		this.rhsY = new double[m];
+		this.solutionX = new double[m];
+		this.solutionY = new double[m];
+		this.seedX = new double[m];
+		this.seedY = new double[m];
+		this.boundaryX = new double[n];
+		this.boundaryY = new double[n];
+	}
+
+	/**
+	 * Sets the starting point of the next iterative solve, and the point that
+	 * {@link #restart()} and {@link #fork()} start from.
+	 *
+	 * @param x x of every vertex
+	 * @param y y of every vertex
+	 */
+	void seed(final int[] x, final int[] y) {
+		for (int r = 0; r < this.interior.length; ++r) {
+			this.seedX[r] = x[this.interior[r]];
+			this.seedY[r] = y[this.interior[r]];
+		}
+		this.restart();
+	}
+
+	/**
+	 * Starts the next iterative solve from the seed instead of the last
+	 * solution.
+	 */
+	void restart() {
+		System.arraycopy(this.seedX, 0, this.solutionX, 0, this.interior.length);
+		System.arraycopy(this.seedY, 0, this.solutionY, 0, this.interior.length);
+	}
+
+	/**
+	 * Shares the pattern of another system, with separate values, solution and
+	 * numeric factorization.
+	 */
+	private ConvexSystem(final ConvexSystem pattern) {
+		this.interior = pattern.interior;
+		this.rowOf = pattern.rowOf;
+		this.rowPtr = pattern.rowPtr;
+		this.cols = pattern.cols;
+		this.couplingPtr = pattern.couplingPtr;
+		this.coupling = pattern.coupling;
+		this.start = pattern.start;
+		this.end = pattern.end;
+		this.couplingStart = pattern.couplingStart;
+		this.couplingEnd = pattern.couplingEnd;
+		this.values = new double[pattern.values.length];
+		this.couplingWeights = new double[pattern.couplingWeights.length];
+		this.rhsX = new double[this.interior.length];
+		this.rhsY = new double[this.interior.length];
+		this.seedX = pattern.seedX;
+		this.seedY = pattern.seedY;
+		this.solutionX = pattern.seedX.clone();
+		this.solutionY = pattern.seedY.clone();
+		this.boundaryX = new double[pattern.boundaryX.length];
+		this.boundaryY = new double[pattern.boundaryY.length];
+		this.lu = pattern.lu == null ? null : pattern.lu.fork();
+	}
+
+	/**
+	 * Returns a system with the same pattern that can be solved from another
+	 * thread. Its iterative solve starts from the seed, so it does not depend
+	 * on what this system has solved.
+	 */
+	ConvexSystem fork() {
+		return new ConvexSystem(this);
+	}
+
+	/**
+	 * Runs the symbolic phase of the direct solver, if not done yet.
+	 */
+	void analyze() {
+		if (this.lu == null) {
+			this.lu = new SparseLU(this.interior.length, this.rowPtr, this.cols);
+		}
+	}
+
+	/**
+	 * Number of interior vertices, i.e. unknowns per coordinate.
+	 */
+	int size() {
+		return this.interior.length;
+	}
+
+	/**
+	 * Assembles the system for the weights interpolated at time t.
+	 */
+	void update(final double t) {
+		for (int k = 0; k < this.values.length; ++k) {
+			this.values[k] = (1.0 - t) * this.start[k] + t * this.end[k];
+		}
+		for (int k = 0; k < this.couplingWeights.length; ++k) {
+			this.couplingWeights[k] = (1.0 - t) * this.couplingStart[k] + t * this.couplingEnd[k];
+		}
+	}
+
+	/**
+	 * Solves the last assembled system for both coordinates with a sparse LU
+	 * factorization.
+	 *
+	 * @param boundaryX x of every vertex; only boundary entries are read
+	 * @param boundaryY y of every vertex; only boundary entries are read
+	 * @param outX      receives the rounded x of every interior vertex
+	 * @param outY      receives the rounded y of every interior vertex
+	 */
+	void solve(final double[] boundaryX, final double[] boundaryY, final int[] outX, final int[] outY) {
+		this.analyze();
+		this.lu.factor(this.values);
+		this.assembleRhs(boundaryX, boundaryY);
+		this.lu.solve(this.rhsX, this.rhsY, this.solutionX, this.solutionY);
+		this.write(outX, outY);
+	}
+
+	/**
+	 * Solves the last assembled system for both coordinates by Gauss-Seidel
+	 * sweeps, starting from the previous solution. Over-relaxation is not used:
+	 * it is not guaranteed to converge for these non-symmetric weights, while
+	 * plain sweeps are, the system being diagonally dominant.
+	 *
+	 * @param boundaryX x of every vertex; only boundary entries are read
+	 * @param boundaryY y of every vertex; only boundary entries are read
+	 * @param tolerance largest change of any coordinate, in pixels, at which a
+	 *                  sweep counts as converged
+	 * @param outX      receives the rounded x of every interior vertex
+	 * @param outY      receives the rounded y of every interior vertex
+	 * @return the number of sweeps done
+	 */
+	int iterate(final double[] boundaryX, final double[] boundaryY, final double tolerance, final int[] outX, final int[] outY) {
+		this.assembleRhs(boundaryX, boundaryY);
+		final double[] x = this.solutionX;
+		final double[] y = this.solutionY;
+		int sweeps = 0;
+		double change;
+		do {
+			change = 0.0;
+			for (int r = 0; r < this.interior.length; ++r) {
+				double sumX = this.rhsX[r];
+				double sumY = this.rhsY[r];
+				for (int k = this.rowPtr[r] + 1; k < this.rowPtr[r + 1]; ++k) {
+					sumX -= this.values[k] * x[this.cols[k]];
+					sumY -= this.values[k] * y[this.cols[k]];
+				}
+				final double diag = this.values[this.rowPtr[r]];
+				final double dx = sumX / diag - x[r];
+				final double dy = sumY / diag - y[r];
+				x[r] += dx;
+				y[r] += dy;
+				change = Math.max(change, Math.max(Math.abs(dx), Math.abs(dy)));
+			}
+			++sweeps;
+		} while (change > tolerance && sweeps < MAX_SWEEPS);
+		this.write(outX, outY);
+		return sweeps;
+	}
+
+	private void assembleRhs(final double[] boundaryX, final double[] boundaryY) {
+		for (int r = 0; r < this.interior.length; ++r) {
+			double sumX = 0.0;
+			double sumY = 0.0;
+			for (int k = this.couplingPtr[r]; k < this.couplingPtr[r + 1]; ++k) {
+				sumX += this.couplingWeights[k] * boundaryX[this.coupling[k]];
+				sumY += this.couplingWeights[k] * boundaryY[this.coupling[k]];
+			}
+			this.rhsX[r] = -sumX;
+			this.rhsY[r] = -sumY;
+		}
+	}
+
+	/**
+	 * Writes the solution rounded to the nearest pixel, so that the last frame
+	 * lands on the final drawing rather than a pixel short of it.
+	 */
+	private void write(final int[] outX, final int[] outY) {
+		for (int r = 0; r < this.interior.length; ++r) {
+			outX[this.interior[r]] = (int) Math.round(this.solutionX[r]);
+			outY[this.interior[r]] = (int) Math.round(this.solutionY[r]);
+		}
+	}
+}
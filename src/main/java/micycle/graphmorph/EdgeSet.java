@@ -0,0 +1,70 @@
+package micycle.graphmorph;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash set of undirected edges, each packed into one
+ * <code>long</code> key with the larger endpoint in the high word, so that
+ * (a, b) and (b, a) are the same edge. Linear probing over a power-of-two table
+ * kept at most half full. The array is reused across {@link #reset(int)}
+ * calls, of which only the prefix in use is cleared.
+ */
+final class EdgeSet {
+
+	/**
+	 * Marks a free slot; no key is negative since vertex indices are not.
+	 */
+	private static final long FREE = -1L;
+
+	private long[] keys;
+	private int mask;
+
+	EdgeSet() {
+		this.keys = new long[16];
+		this.mask = 15;
+		Arrays.fill(this.keys, FREE);
+	}
+
+	/**
+	 * Empties the set, sizing it for the given number of edges.
+	 */
+	void reset(final int expected) {
+		final int capacity = Integer.highestOneBit(Math.max(8, expected) * 2 - 1) << 1;
+		if (capacity > this.keys.length) {
+			this.keys = new long[capacity];
+		}
+		this.mask = capacity - 1;
+		Arrays.fill(this.keys, 0, capacity, FREE);
+	}
+
+	/**
+	 * Adds the edge between vertices a and b.
+	 *
+	 * @return true if the edge was not yet in the set
+	 */
+	boolean add(final int a, final int b) {
+		final long key = (long) Math.max(a, b) << 32 | Math.min(a, b);
+		int slot = hash(key) & this.mask;
+		while (this.keys[slot] != FREE) {
+			if (this.keys[slot] == key) {
+				return false;
+			}
+			slot = (slot + 1) & this.mask;
+		}
+		this.keys[slot] = key;
+		return true;
+	}
+
+	/**
+	 * Finalizer of MurmurHash3, spreading consecutive vertex indices over the
+	 * table.
+	 */
+	private static int hash(long key) {
+		key ^= key >>> 33;
+		key *= 0xff51afd7ed558ccdL;
+		key ^= key >>> 33;
+		key *= 0xc4ceb9fe1a85ec53L;
+		key ^= key >>> 33;
+		return (int) key;
+	}
+}
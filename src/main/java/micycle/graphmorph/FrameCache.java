@@ -0,0 +1,192 @@
+package micycle.graphmorph;
+
+/**
+ * Memory-bounded cache of computed animation frames, keyed by frame index.
+ * <p>
+ * Each cached frame is one flat int buffer holding the x, y and packed colour
+ * of every vertex. Entries are linked in least-recently-used order through
+ * primitive index arrays, so lookups and insertions never allocate once a
+ * frame is stored. When the total size exceeds the budget, the least recently
+ * used frames are evicted.
+ */
+final class FrameCache {
+
+	/**
+	 * Approximate per-array overhead, in bytes, counted against the budget.
+	 */
+	private static final long ARRAY_OVERHEAD = 16;
+
+	private long budget;
+	private long usedBytes;
+	/**
+	 * Cached frame i as [x0..xn, y0..yn, rgb0..rgbn], or null.
+	 */
+	private int[][] entries;
+	/**
+	 * Doubly linked LRU list over frame indices; head is the most recent.
+	 */
+	private int[] prev;
+	private int[] next;
+	private int head;
+	private int tail;
+	private int count;
+	/**
+	 * Frame count and vertex count the cached entries were computed for.
+	 */
+	private int totalFrames;
+	private int vertexCount;
+	/**
+	 * Buffer of the last evicted frame, reused by the next insertion so that a
+	 * cache over its budget does not allocate a buffer per computed frame.
+	 */
+	private int[] spare;
+
+	/**
+	 * @param budget maximum size of the cached frames, in bytes
+	 */
+	FrameCache(final long budget) {
+		this.budget = budget;
+		this.entries = new int[0][];
+		this.prev = new int[0];
+		this.next = new int[0];
+		this.head = -1;
+		this.tail = -1;
+		this.totalFrames = -1;
+	}
+
+	/**
+	 * Sets the memory budget, evicting frames if the cache is over it.
+	 */
+	void setBudget(final long budget) {
+		this.budget = budget;
+		this.evict();
+	}
+
+	long getBudget() {
+		return this.budget;
+	}
+
+	long usedBytes() {
+		return this.usedBytes;
+	}
+
+	/**
+	 * Number of cached frames.
+	 */
+	int size() {
+		return this.count;
+	}
+
+	/**
+	 * Drops every cached frame.
+	 */
+	void clear() {
+		for (int f = this.head; f != -1; f = this.next[f]) {
+			this.entries[f] = null;
+		}
+		this.head = -1;
+		this.tail = -1;
+		this.count = 0;
+		this.usedBytes = 0;
+		this.spare = null;
+	}
+
+	/**
+	 * Copies a cached frame into out.
+	 *
+	 * @return false if the frame is not cached
+	 */
+	boolean get(final int frame, final int totalFrames, final int vertexCount, final MorphFrame out) {
+		if (totalFrames != this.totalFrames || vertexCount != this.vertexCount || frame < 0 || frame >= this.entries.length) {
+			return false;
+		}
+		final int[] entry = this.entries[frame];
+		if (entry == null) {
+			return false;
+		}
+		out.ensureCapacity(vertexCount);
+		System.arraycopy(entry, 0, out.x, 0, vertexCount);
+		System.arraycopy(entry, vertexCount, out.y, 0, vertexCount);
+		System.arraycopy(entry, 2 * vertexCount, out.rgb, 0, vertexCount);
+		this.unlink(frame);
+		this.linkFirst(frame);
+		return true;
+	}
+
+	/**
+	 * Stores a copy of a computed frame, evicting older frames to stay within
+	 * the budget.
+	 */
+	void put(final int frame, final int totalFrames, final MorphFrame in) {
+		final int n = in.size;
+		final long bytes = 12L * n + ARRAY_OVERHEAD;
+		if (bytes > this.budget || frame < 0 || frame > totalFrames) {
+			return;
+		}
+		if (totalFrames != this.totalFrames || n != this.vertexCount) {
+			this.clear();
+			this.totalFrames = totalFrames;
+			this.vertexCount = n;
+			if (this.entries.length < totalFrames + 1) {
+				this.entries = new int[totalFrames + 1][];
+				this.prev = new int[totalFrames + 1];
+				this.next = new int[totalFrames + 1];
+			}
+		}
+		int[] entry = this.entries[frame];
+		if (entry == null) {
+			if (this.spare != null && this.spare.length == 3 * n) {
+				entry = this.spare;
+				this.spare = null;
+			} else {
+				entry = new int[3 * n];
+			}
+			this.entries[frame] = entry;
+			this.usedBytes += bytes;
+			++this.count;
+		} else {
+			this.unlink(frame);
+		}
+		System.arraycopy(in.x, 0, entry, 0, n);
+		System.arraycopy(in.y, 0, entry, n, n);
+		System.arraycopy(in.rgb, 0, entry, 2 * n, n);
+		this.linkFirst(frame);
+		this.evict();
+	}
+
+	private void evict() {
+		while (this.usedBytes > this.budget && this.tail != -1) {
+			final int f = this.tail;
+			this.unlink(f);
+			this.usedBytes -= 4L * this.entries[f].length + ARRAY_OVERHEAD;
+			this.spare = this.entries[f];
+			this.entries[f] = null;
+			--this.count;
+		}
+	}
+
+	private void linkFirst(final int f) {
+		this.prev[f] = -1;
+		this.next[f] = this.head;
+		if (this.head != -1) {
+			this.prev[this.head] = f;
+		}
+		this.head = f;
+		if (this.tail == -1) {
+			this.tail = f;
+		}
+	}
+
+	private void unlink(final int f) {
+		if (this.prev[f] != -1) {
+			this.next[this.prev[f]] = this.next[f];
+		} else {
+			this.head = this.next[f];
+		}
+		if (this.next[f] != -1) {
+			this.prev[this.next[f]] = this.prev[f];
+		} else {
+			this.tail = this.prev[f];
+		}
+	}
+}
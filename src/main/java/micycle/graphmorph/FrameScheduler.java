@@ -0,0 +1,176 @@
+package micycle.graphmorph;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.IntConsumer;
+
+/**
+ * Fixed-rate frame scheduler for animation playback.
+ * <p>
+ * A single thread waits for each frame deadline with
+ * {@link LockSupport#parkNanos(long)} and parks indefinitely while paused, so
+ * it uses no CPU between frames or when idle. Each due frame is handed to the
+ * target as the number of frame steps to advance by. When rendering falls
+ * behind the schedule, the {@link Policy} decides whether the missed frames are
+ * dropped or rendered back-to-back; dropped and late frames are counted.
+ */
+final class FrameScheduler implements Runnable {
+
+	/**
+	 * What to do with frames whose deadline passed while an earlier frame was
+	 * still rendering.
+	 */
+	enum Policy {
+		/**
+		 * Skip missed frames and advance by their count, keeping playback in step
+		 * with the wall clock.
+		 */
+		DROP,
+		/**
+		 * Render missed frames without waiting until back on schedule, so no frame
+		 * is skipped. If playback falls more than {@link #MAX_BACKLOG} frames
+		 * behind, the schedule restarts from the current time.
+		 */
+		CATCH_UP
+	}
+
+	/**
+	 * Largest number of frames {@link Policy#CATCH_UP} renders back-to-back.
+	 */
+	static final int MAX_BACKLOG = 5;
+
+	private final IntConsumer target;
+	private final MetricsRegistry metrics;
+	private final Thread thread;
+	private volatile long periodNanos;
+	private volatile Policy policy;
+	private volatile boolean playing;
+	private volatile boolean running;
+	private volatile long rendered;
+	private volatile long dropped;
+	private volatile long late;
+
+	/**
+	 * @param target  receives the number of frame steps to advance by, on the
+	 *                scheduler thread
+	 * @param fps     initial frame rate
+	 * @param metrics receives the <code>playback.dropped</code> and
+	 *                <code>playback.late</code> counts
+	 */
+	FrameScheduler(final IntConsumer target, final int fps, final MetricsRegistry metrics) {
+		this.target = target;
+		this.metrics = metrics;
+		this.periodNanos = TimeUnit.SECONDS.toNanos(1) / fps;
+		this.policy = Policy.DROP;
+		this.running = true;
+		this.thread = new Thread(this, "frame-scheduler");
+		this.thread.setDaemon(true);
+		this.thread.setPriority(Thread.MIN_PRIORITY);
+	}
+
+	void start() {
+		this.thread.start();
+	}
+
+	/**
+	 * Sets the frame rate; takes effect from the next frame.
+	 */
+	void setRate(final int fps) {
+		this.periodNanos = TimeUnit.SECONDS.toNanos(1) / fps;
+	}
+
+	void setPolicy(final Policy policy) {
+		this.policy = policy;
+	}
+
+	/**
+	 * Starts or resumes playback; the first frame is due immediately.
+	 */
+	void play() {
+		this.playing = true;
+		LockSupport.unpark(this.thread);
+	}
+
+	/**
+	 * Pauses playback; the scheduler thread parks until {@link #play()}.
+	 */
+	void pause() {
+		this.playing = false;
+	}
+
+	boolean isPlaying() {
+		return this.playing;
+	}
+
+	/**
+	 * Stops the scheduler thread.
+	 */
+	void shutdown() {
+		this.running = false;
+		LockSupport.unpark(this.thread);
+	}
+
+	/**
+	 * @return number of frames handed to the target
+	 */
+	long renderedFrames() {
+		return this.rendered;
+	}
+
+	/**
+	 * @return number of frames skipped under {@link Policy#DROP}
+	 */
+	long droppedFrames() {
+		return this.dropped;
+	}
+
+	/**
+	 * @return number of frames rendered after their deadline had passed by a
+	 *         full period
+	 */
+	long lateFrames() {
+		return this.late;
+	}
+
+	@Override
+	public void run() {
+		long deadline = 0;
+		boolean scheduled = false;
+		while (this.running) {
+			if (!this.playing) {
+				scheduled = false;
+				LockSupport.park(this);
+				continue;
+			}
+			final long now = System.nanoTime();
+			if (!scheduled) {
+				deadline = now;
+				scheduled = true;
+			}
+			if (now < deadline) {
+				LockSupport.parkNanos(this, deadline - now);
+				continue;
+			}
+			final long period = this.periodNanos;
+			final long behind = (now - deadline) / period;
+			int steps = 1;
+			if (behind > 0) {
+				if (this.policy == Policy.DROP) {
+					steps += (int) Math.min(behind, Integer.MAX_VALUE - 1);
+					this.dropped += behind;
+					this.metrics.increment("playback.dropped", behind);
+					deadline += behind * period;
+				} else {
+					++this.late;
+					this.metrics.increment("playback.late", 1);
+					if (behind > MAX_BACKLOG) {
+						deadline = now;
+					}
+				}
+			}
+			deadline += period;
+			++this.rendered;
+			this.target.accept(steps);
+		}
+	}
+}
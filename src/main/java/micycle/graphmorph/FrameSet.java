@@ -0,0 +1,72 @@
+package micycle.graphmorph;
+
+/**
+ * Immutable set of precomputed animation frames, as returned by
+ * {@link MorphEngine#precompute(int, MorphEngine.ProgressListener)}.
+ * <p>
+ * Frame i holds the positions and colours of index i of the prepared
+ * animation. The frames do not depend on the pool they were computed on or on
+ * how it scheduled them, so two precomputations of the same animation are
+ * identical. They also equal what
+ * {@link MorphEngine#frame(int, int, MorphFrame)} produces, except with the
+ * iterative solver, where they can differ within its tolerance: precomputation
+ * restarts the solver at keyframes, while frame() warm-starts it from whatever
+ * it solved last. The set is safe to read from any thread.
+ */
+public final class FrameSet {
+
+	private final int totalFrames;
+	private final int vertexCount;
+	/**
+	 * Frame i as [x0..xn, y0..yn, rgb0..rgbn].
+	 */
+	private final int[][] frames;
+
+	FrameSet(final int totalFrames, final int vertexCount, final int[][] frames) {
+		this.totalFrames = totalFrames;
+		this.vertexCount = vertexCount;
+		this.frames = frames;
+	}
+
+	/**
+	 * @return the total frame count the set was computed for; frame indices run
+	 *         from 0 to this value inclusive
+	 */
+	public int getTotalFrames() {
+		return this.totalFrames;
+	}
+
+	/**
+	 * @return number of vertices in each frame
+	 */
+	public int vertexCount() {
+		return this.vertexCount;
+	}
+
+	/**
+	 * Copies frame i into out.
+	 */
+	public void copyTo(final int frame, final MorphFrame out) {
+		final int[] entry = this.frames[frame];
+		final int n = this.vertexCount;
+		out.ensureCapacity(n);
+		System.arraycopy(entry, 0, out.x, 0, n);
+		System.arraycopy(entry, n, out.y, 0, n);
+		System.arraycopy(entry, 2 * n, out.rgb, 0, n);
+	}
+
+	public int getX(final int frame, final int vertex) {
+		return this.frames[frame][vertex];
+	}
+
+	public int getY(final int frame, final int vertex) {
+		return this.frames[frame][this.vertexCount + vertex];
+	}
+
+	/**
+	 * @return packed 0xRRGGBB colour of a vertex in a frame
+	 */
+	public int getRGB(final int frame, final int vertex) {
+		return this.frames[frame][2 * this.vertexCount + vertex];
+	}
+}
@@ -0,0 +1,358 @@
+package micycle.graphmorph;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Random;
+
+/**
+ * Generates matched pairs of planar straight-line drawings for testing and
+ * benchmarking at scale.
+ * <p>
+ * Both drawings of a pair have the same vertices, numbered identically, and the
+ * same edges; only the positions differ, and each drawing is crossing-free.
+ * Sizes from a hundred to a million vertices are practical. A pair can be
+ * written in the <code>node</code>/<code>edge</code> text format read by
+ * {@link MorphEngine#load(java.io.Reader)}, or loaded into an engine directly.
+ * Generation is deterministic for a given family, size and seed.
+ */
+public final class GraphPairGenerator {
+
+	/**
+	 * Graph families. Vertex counts are rounded to the nearest count the family
+	 * can produce.
+	 */
+	public enum Family {
+		/**
+		 * Triangulation of a jittered square grid with a random diagonal in each
+		 * cell.
+		 */
+		TRIANGULATION,
+		/** Square grid with jittered vertices; the second drawing is sheared. */
+		GRID,
+		/**
+		 * Concentric polygons of equal size joined by spokes around a large inner
+		 * face; the second drawing twists the rings.
+		 */
+		NESTED_POLYGONS,
+		/**
+		 * Random recursive tree in a layered drawing; the drawings differ in
+		 * subtree widths and layer heights.
+		 */
+		TREE,
+		/**
+		 * One hub joined to every other vertex; the drawings differ in spoke
+		 * lengths.
+		 */
+		STAR
+	}
+
+	/**
+	 * Smallest distance, in pixels, between neighbouring vertices of the
+	 * undistorted layouts.
+	 */
+	private static final int SPACING = 16;
+
+	private final Family family;
+	private final int vertexCount;
+	private final int[][] x;
+	private final int[][] y;
+	private final int[] rgb;
+	/**
+	 * Flat edge endpoints, as in {@link GraphStore#links}.
+	 */
+	private int[] links;
+	private int edgeCount;
+
+	/**
+	 * Generates a pair of drawings.
+	 *
+	 * @param family   graph family
+	 * @param vertices approximate number of vertices, at least 4
+	 * @param seed     seed of the random layout choices
+	 */
+	public GraphPairGenerator(final Family family, final int vertices, final long seed) {
+		if (vertices < 4) {
+			throw new IllegalArgumentException("at least 4 vertices required: " + vertices);
+		}
+		this.family = family;
+		final Random random = new Random(seed);
+		switch (family) {
+			case TRIANGULATION :
+			case GRID : {
+				final int k = (int) Math.round(Math.sqrt(vertices));
+				this.vertexCount = k * k;
+				this.x = new int[2][this.vertexCount];
+				this.y = new int[2][this.vertexCount];
+				this.links = new int[2 * (3 * k * k)];
+				this.grid(k, family == Family.TRIANGULATION, random);
+				break;
+			}
+			case NESTED_POLYGONS : {
+				final int m = Math.max(3, (int) Math.round(Math.sqrt(vertices * 2.0 * Math.PI)));
+				final int rings = Math.max(2, vertices / m);
+				this.vertexCount = rings * m;
+				this.x = new int[2][this.vertexCount];
+				this.y = new int[2][this.vertexCount];
+				this.links = new int[2 * (2 * rings * m)];
+				this.rings(rings, m);
+				break;
+			}
+			case TREE : {
+				this.vertexCount = vertices;
+				this.x = new int[2][this.vertexCount];
+				this.y = new int[2][this.vertexCount];
+				this.links = new int[2 * this.vertexCount];
+				this.tree(random);
+				break;
+			}
+			default : {
+				this.vertexCount = vertices;
+				this.x = new int[2][this.vertexCount];
+				this.y = new int[2][this.vertexCount];
+				this.links = new int[2 * this.vertexCount];
+				this.star(random);
+				break;
+			}
+		}
+		this.rgb = new int[this.vertexCount];
+		for (int v = 0; v < this.vertexCount; ++v) {
+			// spread hues; never white, which marks bend vertices
+			this.rgb[v] = (v * 0x9E3779B1 >>> 8) & 0xFEFEFE;
+		}
+	}
+
+	public Family getFamily() {
+		return this.family;
+	}
+
+	public int vertexCount() {
+		return this.vertexCount;
+	}
+
+	public int edgeCount() {
+		return this.edgeCount;
+	}
+
+	/**
+	 * Replaces both graphs of the engine with this pair.
+	 */
+	public void load(final MorphEngine engine) {
+		engine.reset();
+		for (int g = 0; g < 2; ++g) {
+			final GraphStore graph = engine.graphs[g];
+			graph.ensureVertexCapacity(this.vertexCount);
+			graph.ensureLinkCapacity(this.edgeCount);
+			for (int v = 0; v < this.vertexCount; ++v) {
+				graph.addVertex(this.x[g][v], this.y[g][v], this.rgb[v]);
+			}
+			for (int e = 0; e < this.edgeCount; ++e) {
+				graph.addLink(this.links[2 * e], this.links[2 * e + 1]);
+			}
+			graph.nodeCount = this.vertexCount;
+			graph.edgeCount = this.edgeCount;
+		}
+	}
+
+	/**
+	 * Writes the pair in the <code>node</code>/<code>edge</code> text format.
+	 */
+	public void write(final Writer writer) throws IOException {
+		final StringBuilder line = new StringBuilder(64);
+		for (int g = 0; g < 2; ++g) {
+			for (int v = 0; v < this.vertexCount; ++v) {
+				final int c = this.rgb[v];
+				line.setLength(0);
+				line.append("node ").append(v).append(' ').append(this.x[g][v]).append(' ').append(this.y[g][v]).append(' ')
+						.append((c >> 16) & 0xFF).append(' ').append((c >> 8) & 0xFF).append(' ').append(c & 0xFF).append(' ').append(g)
+						.append(" \r\n");
+				writer.append(line);
+			}
+		}
+		for (int g = 0; g < 2; ++g) {
+			for (int e = 0; e < this.edgeCount; ++e) {
+				line.setLength(0);
+				line.append("edge ").append(g).append(' ').append(this.links[2 * e]).append(' ').append(this.links[2 * e + 1]).append(' ')
+						.append(e).append(" \r\n");
+				writer.append(line);
+			}
+		}
+		writer.flush();
+	}
+
+	private void addEdge(final int a, final int b) {
+		this.links[2 * this.edgeCount] = a;
+		this.links[2 * this.edgeCount + 1] = b;
+		++this.edgeCount;
+	}
+
+	/**
+	 * k by k grid, jittered by up to a quarter of the spacing so every cell
+	 * stays convex, optionally with one diagonal per cell. The second drawing is
+	 * jittered independently and sheared.
+	 */
+	private void grid(final int k, final boolean diagonals, final Random random) {
+		final int jitter = SPACING / 4;
+		for (int i = 0; i < k; ++i) {
+			for (int j = 0; j < k; ++j) {
+				final int v = i * k + j;
+				for (int g = 0; g < 2; ++g) {
+					final int shear = g == 0 ? 0 : i * SPACING / 4;
+					this.x[g][v] = SPACING * (j + 1) + shear + random.nextInt(2 * jitter + 1) - jitter;
+					this.y[g][v] = SPACING * (i + 1) + random.nextInt(2 * jitter + 1) - jitter;
+				}
+				if (j + 1 < k) {
+					this.addEdge(v, v + 1);
+				}
+				if (i + 1 < k) {
+					this.addEdge(v, v + k);
+				}
+				if (diagonals && i + 1 < k && j + 1 < k) {
+					if (random.nextBoolean()) {
+						this.addEdge(v, v + k + 1);
+					} else {
+						this.addEdge(v + 1, v + k);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Rings of m vertices at increasing radii, each vertex joined to its
+	 * neighbours on the ring and to the same vertex of the next ring. The inner
+	 * radius keeps the innermost ring at the grid spacing. In the second drawing
+	 * each ring is turned by less than half a sector more than the one inside
+	 * it, so spokes never cross.
+	 */
+	private void rings(final int rings, final int m) {
+		final double sector = 2.0 * Math.PI / m;
+		final double inner = SPACING * m / (2.0 * Math.PI);
+		final double centre = inner + SPACING * rings + SPACING;
+		for (int r = 0; r < rings; ++r) {
+			final double radius = inner + SPACING * r;
+			for (int j = 0; j < m; ++j) {
+				final int v = r * m + j;
+				for (int g = 0; g < 2; ++g) {
+					final double a = sector * j + g * r * sector / (2.5 * rings);
+					this.x[g][v] = (int) Math.round(centre + radius * Math.cos(a));
+					this.y[g][v] = (int) Math.round(centre + radius * Math.sin(a));
+				}
+				this.addEdge(v, r * m + (j + 1) % m);
+				if (r + 1 < rings) {
+					this.addEdge(v, v + m);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Random recursive tree: vertex v hangs from a uniformly chosen earlier
+	 * vertex. Drawn in layers by depth, with subtrees side by side in depth-first
+	 * order and each parent centred over its children; this order is the same in
+	 * both drawings, which only differ in leaf widths and layer heights, so both
+	 * are planar.
+	 */
+	private void tree(final Random random) {
+		final int n = this.vertexCount;
+		final int[] parent = new int[n];
+		final int[] depth = new int[n];
+		final int[] childCount = new int[n + 1];
+		int maxDepth = 0;
+		parent[0] = -1;
+		for (int v = 1; v < n; ++v) {
+			parent[v] = random.nextInt(v);
+			depth[v] = depth[parent[v]] + 1;
+			maxDepth = Math.max(maxDepth, depth[v]);
+			++childCount[parent[v] + 1];
+			this.addEdge(parent[v], v);
+		}
+		// children in CSR order, ascending by vertex
+		for (int v = 0; v < n; ++v) {
+			childCount[v + 1] += childCount[v];
+		}
+		final int[] children = new int[Math.max(1, n - 1)];
+		final int[] fill = new int[n];
+		for (int v = 1; v < n; ++v) {
+			children[childCount[parent[v]] + fill[parent[v]]++] = v;
+		}
+		// iterative post-order walk
+		final int[] order = new int[n];
+		final int[] stack = new int[n];
+		final int[] next = new int[n];
+		int size = 0;
+		int count = 0;
+		stack[size++] = 0;
+		while (size > 0) {
+			final int v = stack[size - 1];
+			if (next[v] < childCount[v + 1] - childCount[v]) {
+				stack[size++] = children[childCount[v] + next[v]++];
+			} else {
+				order[count++] = v;
+				--size;
+			}
+		}
+		final int[] layerY = new int[maxDepth + 1];
+		for (int g = 0; g < 2; ++g) {
+			for (int d = 1; d <= maxDepth; ++d) {
+				layerY[d] = layerY[d - 1] + SPACING * (g == 0 ? 4 : 2 + random.nextInt(5));
+			}
+			int cursor = SPACING;
+			for (int i = 0; i < n; ++i) {
+				final int v = order[i];
+				if (childCount[v + 1] == childCount[v]) {
+					this.x[g][v] = cursor;
+					cursor += g == 0 ? SPACING : SPACING / 2 + random.nextInt(SPACING + 1);
+				} else {
+					final int first = children[childCount[v]];
+					final int last = children[childCount[v + 1] - 1];
+					this.x[g][v] = (this.x[g][first] + this.x[g][last]) >>> 1;
+				}
+				this.y[g][v] = SPACING + layerY[depth[v]];
+			}
+		}
+	}
+
+	/**
+	 * Hub 0 with n - 1 spokes at evenly spaced angles, on a circle large enough
+	 * to keep the outer ends four pixels apart. The second drawing gives
+	 * every spoke a random length between half and all of the radius; spokes
+	 * keep their angles, so they never cross.
+	 */
+	private void star(final Random random) {
+		final int spokes = this.vertexCount - 1;
+		final double radius = Math.max(8.0 * SPACING, 4.0 * spokes / (2.0 * Math.PI));
+		final int centre = (int) Math.round(radius) + SPACING;
+		this.x[0][0] = this.x[1][0] = centre;
+		this.y[0][0] = this.y[1][0] = centre;
+		for (int j = 0; j < spokes; ++j) {
+			final double a = 2.0 * Math.PI * j / spokes;
+			final double r1 = radius * (0.5 + 0.5 * random.nextDouble());
+			this.x[0][j + 1] = (int) Math.round(centre + radius * Math.cos(a));
+			this.y[0][j + 1] = (int) Math.round(centre + radius * Math.sin(a));
+			this.x[1][j + 1] = (int) Math.round(centre + r1 * Math.cos(a));
+			this.y[1][j + 1] = (int) Math.round(centre + r1 * Math.sin(a));
+			this.addEdge(0, j + 1);
+		}
+	}
+
+	/**
+	 * Writes a generated pair in the text format.
+	 * <p>
+	 * Usage: <code>GraphPairGenerator family vertices [seed [file]]</code>; writes
+	 * to standard output when no file is given.
+	 */
+	public static void main(final String[] args) throws IOException {
+		if (args.length < 2) {
+			System.err.println("usage: GraphPairGenerator TRIANGULATION|GRID|NESTED_POLYGONS|TREE|STAR vertices [seed [file]]");
+			System.exit(1);
+		}
+		final GraphPairGenerator pair = new GraphPairGenerator(Family.valueOf(args[0]), Integer.parseInt(args[1]),
+				args.length > 2 ? Long.parseLong(args[2]) : 0);
+		try (Writer writer = new BufferedWriter(args.length > 3 ? new FileWriter(args[3]) : new OutputStreamWriter(System.out), 1 << 16)) {
+			pair.write(writer);
+		}
+	}
+}
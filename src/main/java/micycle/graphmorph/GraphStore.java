@@ -0,0 +1,223 @@
+package micycle.graphmorph;
+
+import java.util.Arrays;
+
+/**
+ * Growable struct-of-arrays store for a single planar graph.
+ * <p>
+ * Vertex attributes and link endpoints are kept in flat primitive arrays that
+ * grow geometrically, so memory scales with the actual graph rather than with a
+ * fixed cap. The endpoints of link <code>e</code> are
+ * <code>links[2 * e]</code> and <code>links[2 * e + 1]</code>.
+ */
+final class GraphStore {
+
+	private static final int INITIAL_CAPACITY = 16;
+
+	/**
+	 * X position of vertex v: x[v]
+	 */
+	int[] x;
+	/**
+	 * Y position of vertex v: y[v]
+	 */
+	int[] y;
+	/**
+	 * Sub-pixel part of the position of vertex v, which lies at
+	 * <code>(x[v] + subX[v], y[v] + subY[v])</code>. Only Steiner vertices,
+	 * placed where diagonals cross, have one; the convex morph reads it so that
+	 * they are not moved onto each other or across their neighbours by
+	 * rounding.
+	 */
+	double[] subX;
+	double[] subY;
+	/**
+	 * Packed 0xRRGGBB colour of vertex v.
+	 */
+	int[] rgb;
+	/**
+	 * Label of vertex v.
+	 */
+	int[] id;
+	/**
+	 * Flat link endpoints: [2e] = ID1; [2e + 1] = ID2
+	 */
+	int[] links;
+	/**
+	 * Number of labelled (user) nodes; these occupy the first slots.
+	 */
+	int nodeCount;
+	/**
+	 * Number of vertices, including bend, boundary and Steiner vertices.
+	 */
+	int vertexCount;
+	/**
+	 * Number of user edges; these occupy the first link slots.
+	 */
+	int edgeCount;
+	/**
+	 * Number of links, including triangulation edges.
+	 */
+	int linkCount;
+	/**
+	 * Bumped by every change made through this class and by {@link #touch()};
+	 * lets derived structures such as {@link SpatialIndex} detect staleness.
+	 */
+	int modCount;
+
+	GraphStore() {
+		this.x = new int[INITIAL_CAPACITY];
+		this.y = new int[INITIAL_CAPACITY];
+		this.subX = new double[INITIAL_CAPACITY];
+		this.subY = new double[INITIAL_CAPACITY];
+		this.rgb = new int[INITIAL_CAPACITY];
+		this.id = new int[INITIAL_CAPACITY];
+		this.links = new int[2 * INITIAL_CAPACITY];
+		Arrays.fill(this.rgb, 0xFFFFFF);
+	}
+
+	/**
+	 * Removes all vertices and links.
+	 */
+	void clear() {
+		this.nodeCount = 0;
+		this.vertexCount = 0;
+		this.edgeCount = 0;
+		this.linkCount = 0;
+		++this.modCount;
+	}
+
+	/**
+	 * Records a change made by writing the arrays or counts directly.
+	 */
+	void touch() {
+		++this.modCount;
+	}
+
+	/**
+	 * Ensures vertex slots <code>[0, n)</code> exist, growing geometrically.
+	 */
+	void ensureVertexCapacity(final int n) {
+		if (n <= this.x.length) {
+			return;
+		}
+		final int capacity = Math.max(n, this.x.length + (this.x.length >> 1));
+		final int old = this.rgb.length;
+		this.x = Arrays.copyOf(this.x, capacity);
+		this.y = Arrays.copyOf(this.y, capacity);
+		this.subX = Arrays.copyOf(this.subX, capacity);
+		this.subY = Arrays.copyOf(this.subY, capacity);
+		this.rgb = Arrays.copyOf(this.rgb, capacity);
+		this.id = Arrays.copyOf(this.id, capacity);
+		Arrays.fill(this.rgb, old, capacity, 0xFFFFFF);
+	}
+
+	/**
+	 * Ensures link slots <code>[0, n)</code> exist, growing geometrically.
+	 */
+	void ensureLinkCapacity(final int n) {
+		if (2 * n <= this.links.length) {
+			return;
+		}
+		this.links = Arrays.copyOf(this.links, Math.max(2 * n, this.links.length + (this.links.length >> 1)));
+	}
+
+	/**
+	 * Appends a vertex and returns its index.
+	 */
+	int addVertex(final int vx, final int vy) {
+		final int v = this.vertexCount;
+		this.ensureVertexCapacity(v + 1);
+		this.x[v] = vx;
+		this.y[v] = vy;
+		this.subX[v] = 0.0;
+		this.subY[v] = 0.0;
+		this.vertexCount++;
+		++this.modCount;
+		return v;
+	}
+
+	/**
+	 * Appends a vertex at a position between pixels, keeping its sub-pixel
+	 * part, and returns its index.
+	 */
+	int addVertex(final double vx, final double vy) {
+		final int v = this.addVertex((int) Math.round(vx), (int) Math.round(vy));
+		this.subX[v] = vx - this.x[v];
+		this.subY[v] = vy - this.y[v];
+		return v;
+	}
+
+	/**
+	 * Appends a labelled vertex of the given colour and returns its index.
+	 */
+	int addVertex(final int vx, final int vy, final int color) {
+		final int v = this.addVertex(vx, vy);
+		this.rgb[v] = color;
+		this.id[v] = v;
+		return v;
+	}
+
+	/**
+	 * Removes vertex v, shifting later vertices down and dropping or renumbering
+	 * the links that reference them.
+	 */
+	void removeVertex(final int v) {
+		System.arraycopy(this.x, v + 1, this.x, v, this.vertexCount - v - 1);
+		System.arraycopy(this.y, v + 1, this.y, v, this.vertexCount - v - 1);
+		System.arraycopy(this.subX, v + 1, this.subX, v, this.vertexCount - v - 1);
+		System.arraycopy(this.subY, v + 1, this.subY, v, this.vertexCount - v - 1);
+		System.arraycopy(this.rgb, v + 1, this.rgb, v, this.vertexCount - v - 1);
+		for (int k = 0; k < this.linkCount; ++k) {
+			if (this.links[2 * k] == v || this.links[2 * k + 1] == v) {
+				this.removeLink(k);
+				--k;
+			} else {
+				if (this.links[2 * k] > v) {
+					--this.links[2 * k];
+				}
+				if (this.links[2 * k + 1] > v) {
+					--this.links[2 * k + 1];
+				}
+			}
+		}
+		--this.vertexCount;
+		--this.nodeCount;
+		++this.modCount;
+	}
+
+	/**
+	 * Appends a link between vertices a and b and returns its index.
+	 */
+	int addLink(final int a, final int b) {
+		final int e = this.linkCount;
+		this.ensureLinkCapacity(e + 1);
+		this.links[2 * e] = a;
+		this.links[2 * e + 1] = b;
+		this.linkCount++;
+		++this.modCount;
+		return e;
+	}
+
+	/**
+	 * Stores a link at slot e, growing the store if needed.
+	 */
+	void setLink(final int e, final int a, final int b) {
+		this.ensureLinkCapacity(e + 1);
+		this.links[2 * e] = a;
+		this.links[2 * e + 1] = b;
+		++this.modCount;
+	}
+
+	/**
+	 * Removes link e, shifting later links down.
+	 */
+	void removeLink(final int e) {
+		if (e < this.edgeCount) {
+			--this.edgeCount;
+		}
+		--this.linkCount;
+		System.arraycopy(this.links, 2 * e + 2, this.links, 2 * e, 2 * (this.linkCount - e));
+		++this.modCount;
+	}
+}
@@ -0,0 +1,64 @@
+package micycle.graphmorph;
+
+/**
+ * Receives counters, timings and value distributions from the morph pipeline.
+ * <p>
+ * Implementations must be safe to call from several threads at once, since
+ * frames may be computed concurrently. {@link StageMetrics} keeps latency
+ * histograms in memory and can expose them over JMX; other monitoring systems
+ * can be plugged in with {@link MorphEngine#setMetricsRegistry(MetricsRegistry)}.
+ * <p>
+ * Stage timers reported by the engine:
+ * <ul>
+ * <li><code>stage.addBoundary</code>, <code>stage.preFindAllPoly</code>,
+ * <code>stage.doTriangulate</code>, <code>stage.overlay</code>,
+ * <code>stage.removeRepeated</code>, <code>stage.plan</code>,
+ * <code>stage.calcFramesConvex</code></li>
+ * <li><code>frame.compute</code>: one computed (not cached) frame;
+ * <code>frame.solve</code>: the linear solve of a convex frame;
+ * <code>frame.draw</code>: drawing a frame in the panel</li>
+ * </ul>
+ * Counters: <code>frame.cacheHit</code>, <code>frame.cacheMiss</code>,
+ * <code>triangulate.faces</code>, <code>playback.dropped</code>,
+ * <code>playback.late</code>. Failure counters:
+ * <code>triangulate.boundaryUnlinked</code>, when no vertex is visible from
+ * a corner of the bounding quadrilateral in both graphs, and
+ * <code>triangulate.unjoined</code>, the components that could not be joined
+ * to their surrounding face. Value histogram: <code>frame.sweeps</code>, the
+ * sweeps of each iterative solve.
+ */
+public interface MetricsRegistry {
+
+	/**
+	 * Registry that discards everything.
+	 */
+	MetricsRegistry NONE = new MetricsRegistry() {
+
+		@Override
+		public void increment(final String counter, final long delta) {
+		}
+
+		@Override
+		public void recordNanos(final String timer, final long nanos) {
+		}
+
+		@Override
+		public void recordValue(final String histogram, final long value) {
+		}
+	};
+
+	/**
+	 * Adds delta to a counter.
+	 */
+	void increment(String counter, long delta);
+
+	/**
+	 * Records one duration of a timed stage, in nanoseconds.
+	 */
+	void recordNanos(String timer, long nanos);
+
+	/**
+	 * Records one non-negative value of a distribution.
+	 */
+	void recordValue(String histogram, long value);
+}
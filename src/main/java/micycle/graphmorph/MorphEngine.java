@@ -0,0 +1,1215 @@
+package micycle.graphmorph;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Headless morphing engine for a pair of planar graphs.
+ * <p>
+ * Holds the initial (0) and final (1) graph and all of the morph math: rigid
+ * alignment, compatible triangulation with Steiner points and the convex
+ * representation used for intersection-free interpolation. Frames are written
+ * into a {@link MorphFrame} as plain coordinate and colour buffers, so the
+ * engine never loads any AWT classes and can be driven without a display.
+ */
+public final class MorphEngine {
+
+	/**
+	 * Default memory budget of the frame cache: 64 MiB.
+	 */
+	private static final long DEFAULT_CACHE_BUDGET = 64L << 20;
+	/**
+	 * Vertices per leaf task of the convex weight computation.
+	 */
+	private static final int WEIGHT_GRAIN = 1024;
+	/**
+	 * Frames between the keyframes of {@link #precompute(int, ProgressListener, ForkJoinPool)},
+	 * at which the iterative solver restarts from its seed.
+	 */
+	private static final int KEYFRAME_INTERVAL = 16;
+
+	/**
+	 * Interpolation scheme used to compute animation frames.
+	 */
+	public enum Mode {
+		/** Straight-line interpolation of node positions. */
+		LINEAR,
+		/** Rigid alignment followed by linear interpolation. */
+		RIGID,
+		/** Interpolation of the convex representations of the graphs. */
+		CONVEX,
+		/** Rigid alignment followed by convex interpolation. */
+		FINAL
+	}
+
+	/**
+	 * Method used to solve the linear system of each convex frame.
+	 */
+	public enum Solver {
+		/** Sparse LU factorization; exact up to rounding. */
+		DIRECT,
+		/**
+		 * Gauss-Seidel iteration warm-started from the previous frame; stops at
+		 * the configured tolerance.
+		 */
+		ITERATIVE
+	}
+
+	/**
+	 * Receives progress of {@link MorphEngine#precompute(int, ProgressListener)}.
+	 * Called from worker threads, once per completed frame.
+	 */
+	public interface ProgressListener {
+
+		/**
+		 * @param completed number of frames computed so far
+		 * @param total     number of frames being computed
+		 */
+		void progress(int completed, int total);
+	}
+
+	/**
+	 * The initial (0) and final (1) graph.
+	 */
+	final GraphStore[] graphs;
+	/**
+	 * Frame-invariant data of the prepared morph; null until
+	 * {@link #prepare(Mode, int)}.
+	 */
+	MorphPlan plan;
+	/**
+	 * Neighbour index of the triangulated initial graph, rebuilt whenever the
+	 * convex representation is prepared.
+	 */
+	Adjacency adjacency;
+	/**
+	 * Sparse per-frame system of the convex morph, with its symbolic
+	 * factorization.
+	 */
+	ConvexSystem system;
+	/**
+	 * Spatial index of each graph, rebuilt lazily once the graph changes.
+	 */
+	final SpatialIndex[] indexes;
+	/**
+	 * Scratch set of the links seen by {@link #removeRepeated()}.
+	 */
+	private final EdgeSet edgeSet;
+	/**
+	 * Convex-combination weights in the initial (lamda0) and final (lamda1)
+	 * drawing, one per entry of {@link #adjacency}: vertex v gives its neighbour
+	 * <code>adjacency.neighbours[k]</code> the weight <code>lamda0[k]</code>.
+	 * Boundary vertices have no weights.
+	 */
+	double[] lamda0;
+	double[] lamda1;
+	int nc;
+	int[] curNodes;
+	/**
+	 * Number of vertices on the outer boundary.
+	 */
+	int bc;
+	int[] borderNodes;
+	/**
+	 * Graph whose triangulation drives the compatible triangulation.
+	 */
+	int primary;
+	Mode mode;
+	Solver solver;
+	/**
+	 * Convergence tolerance of the iterative solver, in pixels.
+	 */
+	double tolerance;
+	/**
+	 * Frames computed since the last {@link #prepare(Mode, int)}.
+	 */
+	final FrameCache cache;
+	/**
+	 * Receives stage timings and frame statistics.
+	 */
+	MetricsRegistry metrics;
+
+	public MorphEngine() {
+		this.graphs = new GraphStore[] { new GraphStore(), new GraphStore() };
+		this.indexes = new SpatialIndex[2];
+		this.edgeSet = new EdgeSet();
+		this.lamda0 = new double[0];
+		this.lamda1 = new double[0];
+		this.curNodes = new int[0];
+		this.borderNodes = new int[4];
+		this.mode = Mode.LINEAR;
+		this.metrics = MetricsRegistry.NONE;
+		this.solver = Solver.DIRECT;
+		this.tolerance = 1.0E-3;
+		this.cache = new FrameCache(DEFAULT_CACHE_BUDGET);
+	}
+
+	/**
+	 * Removes all nodes and edges from both graphs.
+	 */
+	public void reset() {
+		this.graphs[0].clear();
+		this.graphs[1].clear();
+		this.cache.clear();
+	}
+
+	/**
+	 * Reads nodes and edges in the <code>node</code>/<code>edge</code> text
+	 * format into the two graphs.
+	 *
+	 * @param reader source of the graph description
+	 * @throws IOException if the source cannot be read
+	 */
+	public void load(final Reader reader) throws IOException {
+		this.cache.clear();
+		final BufferedReader bufferedReader = new BufferedReader(reader);
+		String line;
+		while ((line = bufferedReader.readLine()) != null) {
+			this.tokenize(line);
+		}
+		this.graphs[0].touch();
+		this.graphs[1].touch();
+	}
+
+	/**
+	 * Writes both graphs in the <code>node</code>/<code>edge</code> text format.
+	 *
+	 * @param writer destination of the graph description
+	 * @throws IOException if the destination cannot be written
+	 */
+	public void save(final Writer writer) throws IOException {
+		for (int i = 0; i < 2; ++i) {
+			for (int j = 0; j < this.graphs[i].vertexCount; ++j) {
+				final int rgb = this.graphs[i].rgb[j];
+				writer.write("node " + j + " " + this.graphs[i].x[j] + " " + this.graphs[i].y[j] + " " + ((rgb >> 16) & 0xFF) + " "
+						+ ((rgb >> 8) & 0xFF) + " " + (rgb & 0xFF) + " " + i + " \r\n");
+			}
+		}
+		for (int k = 0; k < 2; ++k) {
+			for (int l = 0; l < this.graphs[k].edgeCount; ++l) {
+				writer.write("edge " + k + " " + this.graphs[k].links[2 * l] + " " + this.graphs[k].links[2 * l + 1] + " " + l + " \r\n");
+			}
+		}
+	}
+
+	/**
+	 * Number of vertices in the given graph, including bend, boundary and
+	 * Steiner vertices.
+	 */
+	public int vertexCount(final int graph) {
+		return this.graphs[graph].vertexCount;
+	}
+
+	/**
+	 * Number of links in the given graph, including triangulation edges.
+	 */
+	public int linkCount(final int graph) {
+		return this.graphs[graph].linkCount;
+	}
+
+	/**
+	 * Adds a bounding quadrilateral to both graphs and compatibly triangulates
+	 * every face, inserting Steiner points where required.
+	 *
+	 * @return false if the quadrilateral could not be linked to the graphs or a
+	 *         component could not be joined to its surrounding face; the faces
+	 *         affected are left untriangulated and the failures are counted in
+	 *         the metrics registry
+	 */
+	public boolean triangulate() {
+		return this.triangulate(0);
+	}
+
+	boolean triangulate(final int primary) {
+		this.cache.clear();
+		this.primary = primary;
+		long start = System.nanoTime();
+		final boolean linked = this.addBoundary();
+		this.metrics.recordNanos("stage.addBoundary", System.nanoTime() - start);
+		start = System.nanoTime();
+		final boolean joined = this.preFindAllPoly();
+		this.metrics.recordNanos("stage.preFindAllPoly", System.nanoTime() - start);
+		return linked && joined;
+	}
+
+	/**
+	 * Sets the number of vertices on the outer boundary used by the convex morph.
+	 */
+	void setBoundaryCount(final int bc) {
+		if (this.borderNodes.length < bc) {
+			this.borderNodes = Arrays.copyOf(this.borderNodes, bc);
+		}
+		this.bc = bc;
+	}
+
+	/**
+	 * Selects how convex frames are solved. Takes effect from the next frame.
+	 */
+	public void setSolver(final Solver solver) {
+		this.solver = solver;
+		this.cache.clear();
+	}
+
+	/**
+	 * Sets the largest per-sweep change of any coordinate, in pixels, at which
+	 * the iterative solver stops.
+	 */
+	public void setTolerance(final double tolerance) {
+		if (!(tolerance > 0.0)) {
+			throw new IllegalArgumentException("tolerance must be positive: " + tolerance);
+		}
+		this.tolerance = tolerance;
+		this.cache.clear();
+	}
+
+	/**
+	 * Sets the memory budget, in bytes, of the cache of computed frames. Frames
+	 * already computed are returned from the cache, so scrubbing and replay do
+	 * not recompute them; the least recently used frames are evicted first. A
+	 * budget of 0 disables caching.
+	 */
+	public void setFrameCacheBudget(final long bytes) {
+		this.cache.setBudget(bytes);
+	}
+
+	/**
+	 * Sets the registry receiving stage timings, frame timings and cache
+	 * statistics; see {@link MetricsRegistry} for the metric names.
+	 */
+	public void setMetricsRegistry(final MetricsRegistry metrics) {
+		this.metrics = metrics == null ? MetricsRegistry.NONE : metrics;
+	}
+
+	public MetricsRegistry getMetricsRegistry() {
+		return this.metrics;
+	}
+
+	/**
+	 * Computes the frame-invariant morph parameters for the given mode. Must be
+	 * called after the graphs change and before frames are requested.
+	 *
+	 * @param mode        interpolation scheme
+	 * @param totalFrames number of frames in the animation
+	 */
+	public void prepare(final Mode mode, final int totalFrames) {
+		final long start = System.nanoTime();
+		this.mode = mode;
+		this.cache.clear();
+		final MorphPlan plan = new MorphPlan(mode, this.graphs[0], this.graphs[1], this.borderNodes, this.bc);
+		this.metrics.recordNanos("stage.plan", System.nanoTime() - start);
+		if (mode == Mode.CONVEX) {
+			this.calcFramesConvex();
+		} else if (mode == Mode.FINAL) {
+			// the convex weights are those of the aligned initial graph
+			this.calcFramesConvex(plan.alignedX, plan.alignedY);
+		}
+		this.plan = plan;
+	}
+
+	/**
+	 * Computes a single animation frame using the mode passed to
+	 * {@link #prepare(Mode, int)}.
+	 *
+	 * @param frame       index of the frame, in <code>[0, totalFrames]</code>
+	 * @param totalFrames number of frames in the animation
+	 * @param out         buffer receiving node positions and colours
+	 */
+	public void frame(final int frame, final int totalFrames, final MorphFrame out) {
+		if (this.cache.get(frame, totalFrames, this.graphs[0].vertexCount, out)) {
+			this.metrics.increment("frame.cacheHit", 1);
+			return;
+		}
+		this.metrics.increment("frame.cacheMiss", 1);
+		this.computeFrame(frame, totalFrames, out, this.system);
+		this.cache.put(frame, totalFrames, out);
+	}
+
+	/**
+	 * Computes every frame of the animation concurrently on the common
+	 * fork-join pool. See {@link #precompute(int, ProgressListener, ForkJoinPool)}.
+	 */
+	public FrameSet precompute(final int totalFrames, final ProgressListener listener) {
+		return this.precompute(totalFrames, listener, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Computes frames 0 to totalFrames of the animation prepared by
+	 * {@link #prepare(Mode, int)} concurrently on the given pool, and blocks
+	 * until all are done.
+	 * <p>
+	 * Frames are split into contiguous runs, each computed by one task with its
+	 * own solver workspace. Runs start at keyframes, every
+	 * {@value #KEYFRAME_INTERVAL} frames, where the iterative solver restarts from
+	 * the seed of {@link #prepare(Mode, int)}; between keyframes it warm-starts
+	 * from the previous frame. Iterative frames therefore do not depend on the
+	 * pool or on frames computed before, though they can differ, within the
+	 * tolerance, from those of {@link #frame(int, int, MorphFrame)}, which
+	 * warm-starts from whatever it solved last. The graphs must not change while
+	 * this runs.
+	 *
+	 * @param totalFrames number of frames in the animation
+	 * @param listener    notified after each frame; may be null
+	 * @param pool        pool to run on
+	 * @return the computed frames
+	 */
+	public FrameSet precompute(final int totalFrames, final ProgressListener listener, final ForkJoinPool pool) {
+		final int vertexCount = this.graphs[0].vertexCount;
+		final int[][] frames = new int[totalFrames + 1][];
+		if (this.system != null && this.solver == Solver.DIRECT && (this.mode == Mode.CONVEX || this.mode == Mode.FINAL)) {
+			this.system.analyze();
+		}
+		final int intervalsPerTask = Math.max(1, (totalFrames + 1) / (4 * pool.getParallelism() * KEYFRAME_INTERVAL));
+		final int grain = intervalsPerTask * KEYFRAME_INTERVAL;
+		pool.invoke(new FrameTask(0, totalFrames + 1, grain, totalFrames, frames, listener, new AtomicInteger()));
+		return new FrameSet(totalFrames, vertexCount, frames);
+	}
+
+	/**
+	 * Computes a run of frames, splitting it at a keyframe while it is larger
+	 * than the grain, a multiple of the keyframe interval.
+	 */
+	private final class FrameTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final int from, to, grain, totalFrames;
+		private final int[][] frames;
+		private final ProgressListener listener;
+		private final AtomicInteger completed;
+
+		FrameTask(final int from, final int to, final int grain, final int totalFrames, final int[][] frames,
+				final ProgressListener listener, final AtomicInteger completed) {
+			this.from = from;
+			this.to = to;
+			this.grain = grain;
+			this.totalFrames = totalFrames;
+			this.frames = frames;
+			this.listener = listener;
+			this.completed = completed;
+		}
+
+		@Override
+		protected void compute() {
+			if (this.to - this.from > this.grain) {
+				final int mid = Math.max(this.from + KEYFRAME_INTERVAL, ((this.from + this.to) >>> 1) / KEYFRAME_INTERVAL * KEYFRAME_INTERVAL);
+				invokeAll(new FrameTask(this.from, mid, this.grain, this.totalFrames, this.frames, this.listener, this.completed),
+						new FrameTask(mid, this.to, this.grain, this.totalFrames, this.frames, this.listener, this.completed));
+				return;
+			}
+			final ConvexSystem workspace = MorphEngine.this.system == null ? null : MorphEngine.this.system.fork();
+			final MorphFrame out = new MorphFrame();
+			for (int f = this.from; f < this.to; ++f) {
+				if (workspace != null && f % KEYFRAME_INTERVAL == 0) {
+					workspace.restart();
+				}
+				out.ensureCapacity(MorphEngine.this.graphs[0].vertexCount);
+				MorphEngine.this.computeFrame(f, this.totalFrames, out, workspace);
+				final int n = out.size;
+				final int[] entry = new int[3 * n];
+				System.arraycopy(out.x, 0, entry, 0, n);
+				System.arraycopy(out.y, 0, entry, n, n);
+				System.arraycopy(out.rgb, 0, entry, 2 * n, n);
+				this.frames[f] = entry;
+				final int done = this.completed.incrementAndGet();
+				if (this.listener != null) {
+					this.listener.progress(done, this.totalFrames + 1);
+				}
+			}
+		}
+	}
+
+	private void computeFrame(final int frame, final int totalFrames, final MorphFrame out, final ConvexSystem system) {
+		final long start = System.nanoTime();
+		out.ensureCapacity(this.graphs[0].vertexCount);
+		switch (this.mode) {
+			case LINEAR : {
+				this.linearMotion(frame, totalFrames, out);
+				break;
+			}
+			case RIGID : {
+				this.rigidMotion(frame, totalFrames, false, out, system);
+				break;
+			}
+			case CONVEX : {
+				this.ConvexMotion(frame, totalFrames, out, system);
+				break;
+			}
+			case FINAL : {
+				this.rigidMotion(frame, totalFrames, true, out, system);
+				break;
+			}
+		}
+		this.metrics.recordNanos("frame.compute", System.nanoTime() - start);
+	}
+
+	/**
+	 * Adds a bounding quadrilateral to both graphs and links it to a vertex that
+	 * a corner sees in both.
+	 *
+	 * @return false if no vertex is visible from a corner in both graphs, in
+	 *         which case the quadrilateral is left unlinked
+	 */
+	boolean addBoundary() {
+		final int n = this.graphs[0].vertexCount;
+		int n3;
+		int n2 = n3 = this.graphs[0].x[0];
+		int n5;
+		int n4 = n5 = this.graphs[1].x[0];
+		int n7;
+		int n6 = n7 = this.graphs[0].y[0];
+		int n9;
+		int n8 = n9 = this.graphs[1].y[0];
+		double rtheta = MorphPlan.rotation(this.graphs[0], this.graphs[1]) * 180.0 / Math.PI;
+		if (rtheta < 0.0) {
+			rtheta += 360.0;
+		}
+		for (int i = 1; i < this.graphs[0].vertexCount; ++i) {
+			if (this.graphs[0].x[i] < n3) {
+				n3 = this.graphs[0].x[i];
+			}
+			if (this.graphs[0].x[i] > n2) {
+				n2 = this.graphs[0].x[i];
+			}
+			if (this.graphs[0].y[i] < n7) {
+				n7 = this.graphs[0].y[i];
+			}
+			if (this.graphs[0].y[i] > n6) {
+				n6 = this.graphs[0].y[i];
+			}
+			if (this.graphs[1].x[i] < n5) {
+				n5 = this.graphs[1].x[i];
+			}
+			if (this.graphs[1].x[i] > n4) {
+				n4 = this.graphs[1].x[i];
+			}
+			if (this.graphs[1].y[i] < n9) {
+				n9 = this.graphs[1].y[i];
+			}
+			if (this.graphs[1].y[i] > n8) {
+				n8 = this.graphs[1].y[i];
+			}
+		}
+		final int[] array = new int[4];
+		final int[] array2 = new int[4];
+		n3 -= 20;
+		n2 += 20;
+		n7 -= 20;
+		n6 += 20;
+		array[0] = n3;
+		array2[0] = n7;
+		array[1] = n2;
+		array2[1] = n7;
+		array[2] = n2;
+		array2[2] = n6;
+		array[3] = n3;
+		array2[3] = n6;
+		for (int j = 0; j < 4; ++j) {
+			this.graphs[0].addVertex(array[j], array2[j]);
+			this.graphs[0].addLink(n + j, n + (j + 1) % 4);
+		}
+		final int[] array3 = new int[4];
+		final int[] array4 = new int[4];
+		n5 -= 20;
+		n4 += 20;
+		n9 -= 20;
+		n8 += 20;
+		array3[0] = n5;
+		array4[0] = n9;
+		array3[1] = n4;
+		array4[1] = n9;
+		array3[2] = n4;
+		array4[2] = n8;
+		array3[3] = n5;
+		array4[3] = n8;
+		for (int k = 0; k < 4; ++k) {
+			this.borderNodes[k] = this.graphs[1].addVertex(array3[k], array4[k]);
+			this.graphs[1].addLink(n + k, n + (k + 1) % 4);
+		}
+		this.bc = 4;
+		// distance from each corner to each vertex it sees, or 10000 if hidden
+		final double[][] array5 = new double[4][n];
+		final double[][] array6 = new double[4][n];
+		final SpatialIndex index0 = this.index(0);
+		final SpatialIndex index1 = this.index(1);
+		for (int n14 = 0; n14 < 4; ++n14) {
+			for (int n15 = 0; n15 < n; ++n15) {
+				if (!index0.crosses(array[n14], array2[n14], this.graphs[0].x[n15], this.graphs[0].y[n15])) {
+					array5[n14][n15] = Math.sqrt((this.graphs[0].x[n15] - array[n14]) * (this.graphs[0].x[n15] - array[n14])
+							+ (this.graphs[0].y[n15] - array2[n14]) * (this.graphs[0].y[n15] - array2[n14]));
+				} else {
+					array5[n14][n15] = 10000.0;
+				}
+				if (!index1.crosses(array3[n14], array4[n14], this.graphs[1].x[n15], this.graphs[1].y[n15])) {
+					array6[n14][n15] = Math.sqrt((this.graphs[1].x[n15] - array3[n14]) * (this.graphs[1].x[n15] - array3[n14])
+							+ (this.graphs[1].y[n15] - array4[n14]) * (this.graphs[1].y[n15] - array4[n14]));
+				} else {
+					array6[n14][n15] = 10000.0;
+				}
+			}
+		}
+		int l = 0;
+		int m = 0;
+		int i2 = -1;
+		double n16 = 20000.0;
+		final int n17 = (int) (rtheta * 4.0 / 360.0);
+		for (int n18 = 0; n18 < 4; ++n18) {
+			for (int n19 = 0; n19 < n; ++n19) {
+				if (array5[n18][n19] <= 9000.0) {
+					if (array6[n17][n19] <= 9000.0) {
+						if (array5[n18][n19] + array6[n17][n19] < n16) {
+							n16 = array5[n18][n19] + array6[n17][n19];
+							i2 = n18;
+							m = n17;
+							l = n19;
+						}
+					}
+				}
+			}
+		}
+		if (i2 == -1) {
+			this.metrics.increment("triangulate.boundaryUnlinked", 1);
+			return false;
+		}
+		final int[] array7 = new int[4];
+		final int[] array8 = new int[4];
+		for (int n20 = 0; n20 < 4; ++n20) {
+			array7[n20] = this.graphs[1].x[n20 + n];
+			array8[n20] = this.graphs[1].y[n20 + n];
+		}
+		for (int n21 = 0; n21 < 4; ++n21) {
+			this.graphs[1].x[(n21 + i2) % 4 + n] = array7[(n21 + m) % 4];
+			this.graphs[1].y[(n21 + i2) % 4 + n] = array8[(n21 + m) % 4];
+		}
+		this.graphs[1].touch();
+		this.graphs[0].addLink(n + i2, l);
+		this.graphs[1].addLink(n + i2, l);
+		return true;
+	}
+
+	/**
+	 * Determines if a given edge properly crosses any edge in a given graph;
+	 * sharing an endpoint with an edge is not a crossing.
+	 * 
+	 * @param inputX1    the x coordinate of the first endpoint of the input edge
+	 * @param inputY1    the y coordinate of the first endpoint of the input edge
+	 * @param inputX2    the x coordinate of the second endpoint of the input edge
+	 * @param inputY2    the y coordinate of the second endpoint of the input edge
+	 * @param graphIndex the index of the graph to check for intersection
+	 * @return true if the input edge intersects with any edge in the given graph,
+	 *         false otherwise
+	 */
+	boolean edgeCross(final int inputX1, final int inputY1, final int inputX2, final int inputY2, final int graphIndex) {
+		return this.index(graphIndex).crosses(inputX1, inputY1, inputX2, inputY2);
+	}
+
+	/**
+	 * Returns the spatial index of a graph, rebuilding it if the graph changed.
+	 */
+	SpatialIndex index(final int graphIndex) {
+		SpatialIndex index = this.indexes[graphIndex];
+		if (index == null || !index.isCurrent(this.graphs[graphIndex])) {
+			index = this.indexes[graphIndex] = new SpatialIndex(this.graphs[graphIndex]);
+		}
+		return index;
+	}
+
+	/**
+	 * Compatibly triangulates every bounded face, tracing the faces in the final
+	 * graph. Components lying inside a face are first joined to its boundary, so
+	 * each face is one weakly simple polygon; the outer face, around the
+	 * boundary quadrilateral, is left alone.
+	 *
+	 * @return false if a component could not be joined, in which case its face
+	 *         is left untriangulated
+	 */
+	boolean preFindAllPoly() {
+		final GraphStore graph = this.graphs[1];
+		PlanarFaces faces = new PlanarFaces(new Adjacency(graph), graph.links, graph.linkCount);
+		int outer = this.outerFace(faces);
+		if (this.bridgeHoles(faces, outer) > 0) {
+			faces = new PlanarFaces(new Adjacency(graph), graph.links, graph.linkCount);
+			outer = this.outerFace(faces);
+		}
+		final int sign = -Long.signum(faces.area(outer, graph.x, graph.y));
+		int unjoined = 0;
+		for (int f = 0; f < faces.faceCount; ++f) {
+			final int nc = faces.size(f);
+			if (f == outer || nc < 3) {
+				continue;
+			}
+			// the cycle around a component that could not be joined
+			if (Long.signum(faces.area(f, graph.x, graph.y)) != sign) {
+				++unjoined;
+				continue;
+			}
+			this.metrics.increment("triangulate.faces", 1);
+			if (this.curNodes.length < nc) {
+				this.curNodes = new int[nc];
+			}
+			for (int i = 0; i < nc; ++i) {
+				this.curNodes[i] = faces.vertex(f, i);
+			}
+			this.nc = nc;
+			final long start = System.nanoTime();
+			this.doTriangulate();
+			this.metrics.recordNanos("stage.doTriangulate", System.nanoTime() - start);
+		}
+		// the faces only append links, so one pass removes all their repeats
+		final long start = System.nanoTime();
+		this.removeRepeated();
+		this.metrics.recordNanos("stage.removeRepeated", System.nanoTime() - start);
+		if (unjoined > 0) {
+			this.metrics.increment("triangulate.unjoined", unjoined);
+		}
+		return unjoined == 0;
+	}
+
+	/**
+	 * Finds the face outside the boundary quadrilateral, whose cycle is the
+	 * border nodes in either direction.
+	 */
+	private int outerFace(final PlanarFaces faces) {
+		for (int f = 0; f < faces.faceCount; ++f) {
+			final int nc = faces.size(f);
+			if (nc != this.bc) {
+				continue;
+			}
+			int n15;
+			for (n15 = 0; n15 < nc && faces.vertex(f, n15) != this.borderNodes[0]; ++n15) {
+			}
+			int n16;
+			for (n16 = 0; n16 < nc && faces.vertex(f, n15 + n16) == this.borderNodes[n16]; ++n16) {
+			}
+			int n17;
+			for (n17 = 0; n17 < nc && faces.vertex(f, n15 - n17) == this.borderNodes[n17]; ++n17) {
+			}
+			if (n15 < nc && (n16 == nc || n17 == nc)) {
+				return f;
+			}
+		}
+		throw new IllegalStateException("boundary quadrilateral is not a face");
+	}
+
+	/**
+	 * Joins every component lying inside a face to the rest of the graph. The
+	 * new link runs from a corner of the component's cycle to the nearest vertex
+	 * of another component that it reaches, in both drawings, without crossing a
+	 * link or passing through a vertex, and is added to both graphs.
+	 *
+	 * @return the number of links added
+	 */
+	private int bridgeHoles(final PlanarFaces faces, final int outer) {
+		final GraphStore graph0 = this.graphs[0];
+		final GraphStore graph1 = this.graphs[1];
+		final int sign0 = -Long.signum(faces.area(outer, graph0.x, graph0.y));
+		final int sign1 = -Long.signum(faces.area(outer, graph1.x, graph1.y));
+		final int[] components = new int[graph1.vertexCount];
+		for (int v = 0; v < components.length; ++v) {
+			components[v] = v;
+		}
+		final boolean[] linked = new boolean[graph1.vertexCount];
+		for (int e = 0; e < graph1.linkCount; ++e) {
+			components[find(components, graph1.links[2 * e])] = find(components, graph1.links[2 * e + 1]);
+			linked[graph1.links[2 * e]] = linked[graph1.links[2 * e + 1]] = true;
+		}
+		int bridges = 0;
+		for (int f = 0; f < faces.faceCount; ++f) {
+			if (f == outer || Long.signum(faces.area(f, graph1.x, graph1.y)) == sign1) {
+				continue;
+			}
+			if (this.bridgeHole(faces, f, components, linked, sign0, sign1)) {
+				++bridges;
+			}
+		}
+		return bridges;
+	}
+
+	private boolean bridgeHole(final PlanarFaces faces, final int f, final int[] components, final boolean[] linked, final int sign0,
+			final int sign1) {
+		final GraphStore graph0 = this.graphs[0];
+		final GraphStore graph1 = this.graphs[1];
+		final int component = find(components, faces.vertex(f, 0));
+		final long[] candidates = new long[graph1.vertexCount];
+		for (int i = 0; i < faces.size(f); ++i) {
+			final int p = faces.vertex(f, i - 1);
+			final int h = faces.vertex(f, i);
+			final int q = faces.vertex(f, i + 1);
+			int count = 0;
+			for (int v = 0; v < graph1.vertexCount; ++v) {
+				if (linked[v] && find(components, v) != component && opens(graph0, sign0, p, h, q, v) && opens(graph1, sign1, p, h, q, v)) {
+					final double distance = Math.hypot(graph0.x[v] - graph0.x[h], graph0.y[v] - graph0.y[h])
+							+ Math.hypot(graph1.x[v] - graph1.x[h], graph1.y[v] - graph1.y[h]);
+					// non-negative floats order like their bits
+					candidates[count++] = (long) Float.floatToIntBits((float) distance) << 32 | v;
+				}
+			}
+			Arrays.sort(candidates, 0, count);
+			for (int c = 0; c < count; ++c) {
+				final int v = (int) candidates[c];
+				if (this.sees(0, h, v) && this.sees(1, h, v)) {
+					graph0.addLink(h, v);
+					graph1.addLink(h, v);
+					components[component] = find(components, v);
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Determines whether the segment between vertices a and b of a graph meets
+	 * the graph only at its endpoints.
+	 */
+	private boolean sees(final int graphIndex, final int a, final int b) {
+		final GraphStore graph = this.graphs[graphIndex];
+		final SpatialIndex index = this.index(graphIndex);
+		return !index.crosses(graph.x[a], graph.y[a], graph.x[b], graph.y[b])
+				&& !index.touchesVertex(graph.x[a], graph.y[a], graph.x[b], graph.y[b]);
+	}
+
+	/**
+	 * Determines whether the direction from h to v leaves h into the face whose
+	 * cycle turns at h from p to q, given the sign of the bounded faces' areas.
+	 */
+	private static boolean opens(final GraphStore graph, final int sign, final int p, final int h, final int q, final int v) {
+		final long ax = graph.x[q] - (long) graph.x[h], ay = graph.y[q] - (long) graph.y[h];
+		final long bx = graph.x[p] - (long) graph.x[h], by = graph.y[p] - (long) graph.y[h];
+		final long dx = graph.x[v] - (long) graph.x[h], dy = graph.y[v] - (long) graph.y[h];
+		// the face lies on the sign side of both half-edges at the corner
+		final long ad = sign * (ax * dy - ay * dx);
+		final long db = sign * (dx * by - dy * bx);
+		final long ab = sign * (ax * by - ay * bx);
+		if (ab > 0) {
+			return ad > 0 && db > 0;
+		}
+		if (ab < 0) {
+			return ad > 0 || db > 0;
+		}
+		if (ax * bx + ay * by < 0) {
+			return ad > 0;
+		}
+		// the tip of a bridge, open all round but along the bridge
+		return ad != 0 || ax * dx + ay * dy < 0;
+	}
+
+	private static int find(final int[] components, int v) {
+		while (components[v] != v) {
+			v = components[v] = components[components[v]];
+		}
+		return v;
+	}
+
+	/**
+	 * Removes repeated links, in either direction, from both graphs, keeping the
+	 * first of each in place so that links stay numbered alike in the two
+	 * graphs.
+	 */
+	void removeRepeated() {
+		for (final GraphStore graph : this.graphs) {
+			final int[] links = graph.links;
+			this.edgeSet.reset(graph.linkCount);
+			int kept = 0;
+			int keptEdges = 0;
+			for (int e = 0; e < graph.linkCount; ++e) {
+				final int a = links[2 * e];
+				final int b = links[2 * e + 1];
+				if (this.edgeSet.add(a, b)) {
+					links[2 * kept] = a;
+					links[2 * kept + 1] = b;
+					++kept;
+					if (e < graph.edgeCount) {
+						++keptEdges;
+					}
+				}
+			}
+			if (kept < graph.linkCount) {
+				graph.linkCount = kept;
+				graph.edgeCount = keptEdges;
+				graph.touch();
+			}
+		}
+	}
+
+	private void tokenize(final String s) {
+		int n2 = s.indexOf(32, 0); // find index first space
+		String type = s.substring(0, n2);
+		if (type.equals("node")) {
+			String[] data = s.substring(n2 + 1).split(" ");
+			final int nodeID = Integer.parseInt(data[0]);
+			final int xPos = Integer.parseInt(data[1]);
+			final int yPos = Integer.parseInt(data[2]);
+			final int r = Integer.parseInt(data[3]);
+			final int g = Integer.parseInt(data[4]);
+			final int b = Integer.parseInt(data[5]);
+			final int graphID = Integer.parseInt(data[6]); // whether initial (0) or final graph (1)
+			this.graphs[graphID].ensureVertexCapacity(nodeID + 1);
+			this.graphs[graphID].x[nodeID] = xPos;
+			this.graphs[graphID].y[nodeID] = yPos;
+			this.graphs[graphID].subX[nodeID] = 0.0;
+			this.graphs[graphID].subY[nodeID] = 0.0;
+			this.graphs[graphID].rgb[nodeID] = (r << 16) | (g << 8) | b;
+			this.graphs[graphID].id[nodeID] = nodeID;
+			this.graphs[graphID].vertexCount = nodeID + 1;
+			if (r != 255 || g != 255 || b != 255) {
+				this.graphs[graphID].nodeCount = nodeID + 1;
+			}
+		}
+		if (type.equals("edge")) {
+			String[] data = s.substring(n2 + 1).split(" ");
+			final int graphID = Integer.parseInt(data[0]); // whether initial (0) or final graph (1)
+			final int toNodeID = Integer.parseInt(data[1]);
+			final int fromNodeID = Integer.parseInt(data[2]);
+			final int edgeID = Integer.parseInt(data[3]);
+			this.graphs[graphID].setLink(edgeID, toNodeID, fromNodeID);
+			this.graphs[graphID].linkCount = (this.graphs[graphID].edgeCount = edgeID + 1);
+		}
+	}
+
+	private void doTriangulate() {
+		final int n = 1 - this.primary;
+		final GraphStore primary = this.graphs[this.primary];
+		final GraphStore other = this.graphs[n];
+		// the face as polygon 0 to nc - 1 in both drawings
+		final int[] order = new int[this.nc];
+		final int[] array4 = new int[this.nc];
+		final int[] array5 = new int[this.nc];
+		final int[] array6 = new int[this.nc];
+		final int[] array7 = new int[this.nc];
+		for (int i = 0; i < this.nc; ++i) {
+			order[i] = i;
+			array6[i] = primary.x[this.curNodes[i]];
+			array7[i] = primary.y[this.curNodes[i]];
+			array4[i] = other.x[this.curNodes[i]];
+			array5[i] = other.y[this.curNodes[i]];
+		}
+		final int d = Math.max(0, this.nc - 3);
+		final int[][] array8 = new int[d][2];
+		final int[][] array3 = new int[d][2];
+		final int triangulate = this.triangulate(order, this.nc, array8, 0, array6, array7);
+		final int triangulate2 = this.triangulate(order, this.nc, array3, 0, array4, array5);
+		final long start = System.nanoTime();
+		final SteinerOverlay overlay = new SteinerOverlay(this.nc, array8, triangulate, array3, triangulate2);
+		this.metrics.recordNanos("stage.overlay", System.nanoTime() - start);
+		// overlay vertex nc + s is the Steiner vertex for crossing s, placed on its
+		// diagonal of each drawing at the same fraction as on the reference polygon;
+		// rounding it to a pixel could fold it over its neighbours, so the sub-pixel
+		// part is kept
+		final int n2 = primary.vertexCount;
+		for (int s = 0; s < overlay.crossings; ++s) {
+			final int[] a = array8[overlay.crossing0[s]];
+			final int[] b = array3[overlay.crossing1[s]];
+			final double t0 = overlay.along0[s];
+			final double t1 = overlay.along1[s];
+			primary.addVertex(array6[a[0]] + t0 * (array6[a[1]] - array6[a[0]]), array7[a[0]] + t0 * (array7[a[1]] - array7[a[0]]));
+			other.addVertex(array4[b[0]] + t1 * (array4[b[1]] - array4[b[0]]), array5[b[0]] + t1 * (array5[b[1]] - array5[b[0]]));
+		}
+		for (int e = 0; e < overlay.pieceCount; ++e) {
+			final int u = this.overlayVertex(overlay.pieces[2 * e], n2);
+			final int v = this.overlayVertex(overlay.pieces[2 * e + 1], n2);
+			primary.addLink(u, v);
+			other.addLink(u, v);
+		}
+		this.nc = 0;
+	}
+
+	/**
+	 * Maps overlay vertex v of the current face to its vertex in the graphs,
+	 * given the vertex count before the face's Steiner vertices were added.
+	 */
+	private int overlayVertex(final int v, final int firstSteiner) {
+		return v < this.nc ? this.curNodes[v] : firstSteiner + v - this.nc;
+	}
+
+	private void linearMotion(final int curFrame, final int value, final MorphFrame out) {
+		final MorphPlan plan = this.plan;
+		final int[] array = out.x;
+		final int[] array2 = out.y;
+		final int[] array3 = out.rgb;
+		for (int i = 0; i < plan.vertexCount; ++i) {
+			array3[i] = plan.rgb(i, curFrame, value);
+			array[i] = plan.startX[i] + plan.deltaX[i] * curFrame / value;
+			array2[i] = plan.startY[i] + plan.deltaY[i] * curFrame / value;
+		}
+	}
+
+	private void rigidMotion(final int curFrame, final int value, final boolean b, final MorphFrame out, final ConvexSystem system) {
+		final int n = value / 4;
+		if (curFrame <= n * 2) {
+			this.rigid1(out, curFrame, n * 2);
+		} else if (!b) {
+			this.rigid2(out, curFrame - n * 2, value - n * 2);
+		} else {
+			this.ConvexMotion(curFrame - n * 2, value - n * 2, out, system);
+		}
+	}
+
+	/**
+	 * Rigid alignment: the fit of {@link MorphPlan} applied to the fraction n / n2.
+	 */
+	private void rigid1(final MorphFrame out, final int n, final int n2) {
+		final MorphPlan plan = this.plan;
+		final int[] array = out.x;
+		final int[] array2 = out.y;
+		final int[] array3 = out.rgb;
+		final double n3 = n / (double) n2;
+		final double n4 = plan.rtheta * n3;
+		double q11 = Math.cos(n4);
+		double q12 = -Math.sin(n4);
+		double q21 = Math.sin(n4);
+		double q22 = Math.cos(n4);
+		final double n5 = 1.0 - n3 + n3 * plan.s11;
+		final double n6 = n3 * plan.s12;
+		final double n7 = n3 * plan.s21;
+		final double n8 = 1.0 - n3 + n3 * plan.s22;
+		for (int i = 0; i < plan.vertexCount; ++i) {
+			final double n9 = plan.offsetX[i];
+			final double n10 = plan.offsetY[i];
+			array3[i] = plan.rgb(i, n, n2);
+			final double n11 = n5 * n9 + n6 * n10;
+			final double n12 = n7 * n9 + n8 * n10;
+			array[i] = (int) (q11 * n11 + q12 * n12 + plan.a13 * n3 + plan.centerX);
+			array2[i] = (int) (q21 * n11 + q22 * n12 + plan.a23 * n3 + plan.centerY);
+		}
+	}
+
+	/**
+	 * Linear motion from the aligned initial graph to the final graph.
+	 */
+	private void rigid2(final MorphFrame out, final int n, final int n2) {
+		final MorphPlan plan = this.plan;
+		final int[] array = out.x;
+		final int[] array2 = out.y;
+		final int[] array3 = out.rgb;
+		final double n3 = n / (double) n2;
+		for (int i = 0; i < plan.vertexCount; ++i) {
+			array3[i] = plan.rgb(i, n, n2);
+			array[i] = (int) (plan.alignedX[i] + plan.travelX[i] * n3);
+			array2[i] = (int) (plan.alignedY[i] + plan.travelY[i] * n3);
+		}
+	}
+
+	/**
+	 * Computes the convex weights of a run of vertices, splitting it while it is
+	 * larger than {@link #WEIGHT_GRAIN}. Each vertex writes only its own entries
+	 * of {@link #lamda0} and {@link #lamda1}, so leaves never share a slot.
+	 */
+	private final class WeightTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final int from, to;
+		private final int[] x0, y0;
+		private final Adjacency adjacency1;
+		private final int[] entries1;
+		private final boolean[] border;
+
+		WeightTask(final int from, final int to, final int[] x0, final int[] y0, final Adjacency adjacency1, final int[] entries1,
+				final boolean[] border) {
+			this.from = from;
+			this.to = to;
+			this.x0 = x0;
+			this.y0 = y0;
+			this.adjacency1 = adjacency1;
+			this.entries1 = entries1;
+			this.border = border;
+		}
+
+		@Override
+		protected void compute() {
+			if (this.to - this.from > WEIGHT_GRAIN) {
+				final int mid = (this.from + this.to) >>> 1;
+				invokeAll(new WeightTask(this.from, mid, this.x0, this.y0, this.adjacency1, this.entries1, this.border),
+						new WeightTask(mid, this.to, this.x0, this.y0, this.adjacency1, this.entries1, this.border));
+				return;
+			}
+			final GraphStore graph0 = MorphEngine.this.graphs[0];
+			final GraphStore graph1 = MorphEngine.this.graphs[1];
+			for (int i = this.from; i < this.to; ++i) {
+				if (!this.border[i]) {
+					meanValueWeights(MorphEngine.this.adjacency, this.x0, this.y0, graph0.subX, graph0.subY, i, null,
+							MorphEngine.this.lamda0);
+					meanValueWeights(this.adjacency1, graph1.x, graph1.y, graph1.subX, graph1.subY, i, this.entries1,
+							MorphEngine.this.lamda1);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Mean value weights of the neighbours of vertex v, normalised to sum to one
+	 * and written into weights at the entry of each ring slot, given by entries
+	 * or, if that is null, the slot itself. Positions are exact, x + subX and
+	 * y + subY, including the sub-pixel parts of Steiner vertices. The weight of neighbour u is
+	 * (tan(a / 2) + tan(b / 2)) / |u - v|, where a and b are the angles between
+	 * the edge to u and the edges to its two neighbours in v's angular ring. If
+	 * the ring is degenerate, as when a neighbour coincides with v, every
+	 * neighbour gets the same weight.
+	 */
+	private static void meanValueWeights(final Adjacency adjacency, final int[] x, final int[] y, final double[] subX,
+			final double[] subY, final int v, final int[] entries, final double[] weights) {
+		final int from = adjacency.offsets[v];
+		final int to = adjacency.offsets[v + 1];
+		final double vx = x[v] + subX[v];
+		final double vy = y[v] + subY[v];
+		double sum = 0.0;
+		for (int k = from; k < to; ++k) {
+			final int u = adjacency.neighbours[k];
+			final int prev = adjacency.neighbours[k == from ? to - 1 : k - 1];
+			final int next = adjacency.neighbours[k + 1 == to ? from : k + 1];
+			final double ux = x[u] + subX[u] - vx;
+			final double uy = y[u] + subY[u] - vy;
+			final double length = Math.sqrt(ux * ux + uy * uy);
+			final int e = entries == null ? k : entries[k];
+			weights[e] = (halfAngleTan(ux, uy, length, x[prev] + subX[prev] - vx, y[prev] + subY[prev] - vy)
+					+ halfAngleTan(ux, uy, length, x[next] + subX[next] - vx, y[next] + subY[next] - vy)) / length;
+			sum += weights[e];
+		}
+		final boolean degenerate = !(sum > 0.0 && sum < Double.POSITIVE_INFINITY);
+		for (int k = from; k < to; ++k) {
+			final int e = entries == null ? k : entries[k];
+			weights[e] = degenerate ? 1.0 / (to - from) : weights[e] / sum;
+		}
+	}
+
+	/**
+	 * tan(a / 2) for the angle a between vectors (ax, ay) and (bx, by), from
+	 * their cross and dot products: |a x b| / (|a| |b| + a . b).
+	 */
+	private static double halfAngleTan(final double ax, final double ay, final double aLength, final double bx, final double by) {
+		return Math.abs(ax * by - ay * bx) / (aLength * Math.sqrt(bx * bx + by * by) + ax * bx + ay * by);
+	}
+
+	/**
+	 * Introduces “bend” vertices on all edges with bends. In the case of a
+	 * curvilinear drawing, we approximate the curves by piecewise linear curves.
+	 * For every edge in the graph, we ensure that the same number of bend vertices
+	 * are introduced in both source and destination graphs.
+	 */
+	void calcFramesConvex() {
+		this.calcFramesConvex(this.graphs[0].x, this.graphs[0].y);
+	}
+
+	/**
+	 * Computes the convex weights and system with the initial graph at the given
+	 * positions instead of its own, leaving the graph itself untouched.
+	 *
+	 * @param x0 x positions of the initial graph's vertices
+	 * @param y0 y positions of the initial graph's vertices
+	 */
+	void calcFramesConvex(final int[] x0, final int[] y0) {
+		final long start = System.nanoTime();
+		final int nodeCount = this.graphs[0].vertexCount;
+		final int boundaryIndex = this.bc;
+		final GraphStore graph0 = this.graphs[0];
+		final GraphStore graph1 = this.graphs[1];
+		this.adjacency = new Adjacency(x0, y0, graph0.subX, graph0.subY, nodeCount, graph0.links, graph0.linkCount);
+		final Adjacency adjacency1 = new Adjacency(graph1.x, graph1.y, graph1.subX, graph1.subY, nodeCount, graph0.links,
+				graph0.linkCount);
+		// both indexes number half-edges by graph0's links, which matches their entries
+		final int[] entryOf = new int[2 * graph0.linkCount];
+		for (int k = 0; k < this.adjacency.halfEdges.length; ++k) {
+			entryOf[this.adjacency.halfEdges[k]] = k;
+		}
+		final int[] entries1 = new int[adjacency1.halfEdges.length];
+		for (int k = 0; k < entries1.length; ++k) {
+			entries1[k] = entryOf[adjacency1.halfEdges[k]];
+		}
+		final boolean[] border = new boolean[nodeCount];
+		for (int k = 0; k < boundaryIndex; ++k) {
+			border[this.borderNodes[k]] = true;
+		}
+		this.lamda0 = new double[this.adjacency.neighbours.length];
+		this.lamda1 = new double[this.adjacency.neighbours.length];
+		ForkJoinPool.commonPool().invoke(new WeightTask(0, nodeCount, x0, y0, adjacency1, entries1, border));
+		this.system = new ConvexSystem(this.adjacency, this.lamda0, this.lamda1, this.borderNodes, this.bc);
+		this.system.seed(x0, y0);
+		this.metrics.recordNanos("stage.calcFramesConvex", System.nanoTime() - start);
+	}
+
+	private void ConvexMotion(final int currFrame, final int endFrame, final MorphFrame out, final ConvexSystem system) {
+		final MorphPlan plan = this.plan;
+		final int nodeCount = plan.vertexCount;
+		final int[] nodeColors = out.rgb;
+		final double[] array3 = system.boundaryX;
+		final double[] array4 = system.boundaryY;
+		final int[] array5 = out.x;
+		final int[] array6 = out.y;
+
+		this.ConvexMotion1(array3, array4, currFrame, endFrame);
+
+		final double t = currFrame / (double) endFrame;
+		system.update(t);
+		final long start = System.nanoTime();
+		if (this.solver == Solver.ITERATIVE) {
+			this.metrics.recordValue("frame.sweeps", system.iterate(array3, array4, this.tolerance, array5, array6));
+		} else {
+			system.solve(array3, array4, array5, array6);
+		}
+		this.metrics.recordNanos("frame.solve", System.nanoTime() - start);
+		for (final int v : plan.boundary) {
+			array5[v] = (int) Math.round(array3[v]);
+			array6[v] = (int) Math.round(array4[v]);
+		}
+		for (int n18 = 0; n18 < nodeCount; ++n18) {
+			nodeColors[n18] = plan.rgb(n18, currFrame, endFrame);
+		}
+	}
+
+	/**
+	 * Places the boundary vertices by interpolating their polar coordinates
+	 * about the moving boundary centroid.
+	 */
+	private void ConvexMotion1(final double[] array, final double[] array2, final int n, final int n2) {
+		final MorphPlan plan = this.plan;
+		final double n6 = n / (double) n2;
+		final double n7 = (1.0 - n6) * plan.boundaryX0 + n6 * plan.boundaryX1;
+		final double n8 = (1.0 - n6) * plan.boundaryY0 + n6 * plan.boundaryY1;
+		for (int k = 0; k < plan.boundary.length; ++k) {
+			final int i = plan.boundary[k];
+			final double n9 = (1.0 - n6) * plan.rad0[k] + n6 * plan.rad1[k];
+			final double n10 = (1.0 - n6) * plan.theta0[k] + n6 * plan.theta1[k];
+			array[i] = n7 + n9 * Math.cos(n10);
+			array2[i] = n8 + n9 * Math.sin(n10);
+		}
+	}
+
+	/**
+	 * Triangulates a polygon using the provided vertices and returns the number of
+	 * triangles created.
+	 * <p>
+	 * Each row in the <code>triangles</code> array represents a single triangle and
+	 * has two columns, each column representing the indices of the vertices of the
+	 * triangle in the nodes array. For example, if <code>triangles[i][0]</code> is
+	 * 5 and <code>triangles[i][1]</code> is 2, then the ith triangle created by the
+	 * triangulation is made up of the vertices represented by the 5th and 2nd
+	 * indices in the nodes array.
+	 * <p>
+	 * The polygon is triangulated by {@link PolygonTriangulator}; the nodes array
+	 * is left unchanged.
+	 * 
+	 * @param nodes             An array of integers representing the vertices of
+	 *                          the polygon.
+	 * @param numberOfNodes     An integer representing the number of vertices in
+	 *                          the polygon.
+	 * @param triangles         A 2D array of integers to hold the triangles created
+	 *                          by the triangulation.
+	 * @param numberOfTriangles An integer representing the number of triangles
+	 *                          currently in the array.
+	 * @param nodeX             An array of x-coordinates for the vertices of the
+	 *                          polygon.
+	 * @param nodeY             An array of y-coordinates for the vertices of the
+	 *                          polygon.
+	 * @return An integer representing the number of triangles created.
+	 */
+	int triangulate(final int[] nodes, final int numberOfNodes, final int[][] triangles, final int numberOfTriangles, final int[] nodeX,
+			final int[] nodeY) {
+		return PolygonTriangulator.triangulate(nodes, numberOfNodes, triangles, numberOfTriangles, nodeX, nodeY);
+	}
+}
@@ -0,0 +1,55 @@
+package micycle.graphmorph;
+
+/**
+ * Node positions and colours of a single animation frame, as written by
+ * {@link MorphEngine#frame(int, int, MorphFrame)}. The buffers are indexed by
+ * vertex and are only valid up to {@link #size()}; they are reused (and grown
+ * when needed) by subsequent frames.
+ */
+public final class MorphFrame {
+
+	int[] x = new int[0];
+	int[] y = new int[0];
+	/**
+	 * Packed 0xRRGGBB node colours.
+	 */
+	int[] rgb = new int[0];
+	int size;
+
+	void ensureCapacity(final int n) {
+		if (this.x.length < n) {
+			this.x = new int[n];
+			this.y = new int[n];
+			this.rgb = new int[n];
+		}
+		this.size = n;
+	}
+
+	/**
+	 * @return number of vertices in this frame
+	 */
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * @return x coordinates of the vertices, valid up to {@link #size()}
+	 */
+	public int[] getX() {
+		return this.x;
+	}
+
+	/**
+	 * @return y coordinates of the vertices, valid up to {@link #size()}
+	 */
+	public int[] getY() {
+		return this.y;
+	}
+
+	/**
+	 * @return packed 0xRRGGBB vertex colours, valid up to {@link #size()}
+	 */
+	public int[] getRGB() {
+		return this.rgb;
+	}
+}
@@ -0,0 +1,311 @@
+package micycle.graphmorph;
+
+/**
+ * Frame-invariant data of a morph, compiled once by
+ * {@link MorphEngine#prepare(MorphEngine.Mode, int)} so that computing a frame
+ * reads only this plan, the convex system and the output buffers.
+ * <p>
+ * The plan copies what it needs from the graphs, so it is immutable and safe to
+ * read from any thread; only the parts used by its mode are built. These are
+ * the node colours with their per-channel deltas, the start positions and
+ * displacements of the linear morph, the rigid fit and the aligned positions it
+ * leads to, and the polar coordinates of the outer boundary, sorted by vertex,
+ * about its centroid in both drawings.
+ */
+final class MorphPlan {
+
+	private static final double TWO_PI = Math.PI * 2;
+
+	final int vertexCount;
+	/**
+	 * Initial colour of each vertex, packed 0xRRGGBB.
+	 */
+	private final int[] rgb;
+	/**
+	 * Final minus initial colour of each vertex, one signed 10-bit field per
+	 * channel with red in the top bits.
+	 */
+	private final int[] rgbDelta;
+
+	/**
+	 * Linear morph: initial position and displacement of each vertex.
+	 */
+	final int[] startX, startY;
+	final int[] deltaX, deltaY;
+
+	/**
+	 * Rigid fit of the initial graph onto the final one: rotation rtheta, then
+	 * the stretch s and translation a13, a23, all about the centre of the
+	 * initial graph.
+	 */
+	final double rtheta;
+	final double s11, s12, s21, s22;
+	final double a13, a23;
+	final double centerX, centerY;
+	/**
+	 * Position of each vertex of the initial graph relative to its centre.
+	 */
+	final double[] offsetX, offsetY;
+	/**
+	 * Truncated position of each vertex after the full rigid fit, and, for the
+	 * rigid morph, the remaining displacement to the final graph.
+	 */
+	final int[] alignedX, alignedY;
+	final double[] travelX, travelY;
+
+	/**
+	 * Vertices of the outer boundary in ascending order, and the centroid of
+	 * the boundary in the initial (0) and final (1) drawing.
+	 */
+	final int[] boundary;
+	final double boundaryX0, boundaryY0, boundaryX1, boundaryY1;
+	/**
+	 * Radius and angle of each boundary vertex about the centroid, by position
+	 * in {@link #boundary}. Angles increase along the list, so that
+	 * interpolating them turns every vertex the same way round.
+	 */
+	final double[] rad0, rad1;
+	final double[] theta0, theta1;
+
+	/**
+	 * @param mode        interpolation scheme to compile for
+	 * @param graph0      initial graph
+	 * @param graph1      final graph, with the same vertices
+	 * @param borderNodes vertices of the outer boundary
+	 * @param bc          number of boundary vertices
+	 */
+	MorphPlan(final MorphEngine.Mode mode, final GraphStore graph0, final GraphStore graph1, final int[] borderNodes, final int bc) {
+		final int n = graph0.vertexCount;
+		this.vertexCount = n;
+		this.rgb = new int[n];
+		this.rgbDelta = new int[n];
+		for (int v = 0; v < n; ++v) {
+			final int rgb0 = graph0.rgb[v];
+			final int rgb1 = graph1.rgb[v];
+			this.rgb[v] = rgb0;
+			this.rgbDelta[v] = ((rgb1 >> 16 & 0xFF) - (rgb0 >> 16 & 0xFF)) << 20 | ((rgb1 >> 8 & 0xFF) - (rgb0 >> 8 & 0xFF) & 0x3FF) << 10
+					| ((rgb1 & 0xFF) - (rgb0 & 0xFF) & 0x3FF);
+		}
+
+		if (mode == MorphEngine.Mode.LINEAR) {
+			this.startX = new int[n];
+			this.startY = new int[n];
+			this.deltaX = new int[n];
+			this.deltaY = new int[n];
+			for (int v = 0; v < n; ++v) {
+				this.startX[v] = graph0.x[v];
+				this.startY[v] = graph0.y[v];
+				this.deltaX[v] = graph1.x[v] - graph0.x[v];
+				this.deltaY[v] = graph1.y[v] - graph0.y[v];
+			}
+		} else {
+			this.startX = this.startY = this.deltaX = this.deltaY = null;
+		}
+
+		if (mode == MorphEngine.Mode.RIGID || mode == MorphEngine.Mode.FINAL) {
+			final double[] fit = fit(graph0, graph1);
+			this.centerX = fit[0];
+			this.centerY = fit[1];
+			this.rtheta = fit[2];
+			this.s11 = fit[3];
+			this.s12 = fit[4];
+			this.s21 = fit[5];
+			this.s22 = fit[6];
+			this.a13 = fit[7];
+			this.a23 = fit[8];
+			this.offsetX = new double[n];
+			this.offsetY = new double[n];
+			this.alignedX = new int[n];
+			this.alignedY = new int[n];
+			final double q11 = Math.cos(this.rtheta);
+			final double q12 = -Math.sin(this.rtheta);
+			final double q21 = Math.sin(this.rtheta);
+			final double q22 = Math.cos(this.rtheta);
+			for (int v = 0; v < n; ++v) {
+				this.offsetX[v] = graph0.x[v] - this.centerX;
+				this.offsetY[v] = graph0.y[v] - this.centerY;
+				final double sx = this.s11 * this.offsetX[v] + this.s12 * this.offsetY[v];
+				final double sy = this.s21 * this.offsetX[v] + this.s22 * this.offsetY[v];
+				this.alignedX[v] = (int) (q11 * sx + q12 * sy + this.a13 + this.centerX);
+				this.alignedY[v] = (int) (q21 * sx + q22 * sy + this.a23 + this.centerY);
+			}
+		} else {
+			this.centerX = this.centerY = this.rtheta = 0.0;
+			this.s11 = this.s12 = this.s21 = this.s22 = 0.0;
+			this.a13 = this.a23 = 0.0;
+			this.offsetX = this.offsetY = null;
+			this.alignedX = this.alignedY = null;
+		}
+		if (mode == MorphEngine.Mode.RIGID) {
+			this.travelX = new double[n];
+			this.travelY = new double[n];
+			for (int v = 0; v < n; ++v) {
+				this.travelX[v] = graph1.x[v] - (double) this.alignedX[v];
+				this.travelY[v] = graph1.y[v] - (double) this.alignedY[v];
+			}
+		} else {
+			this.travelX = this.travelY = null;
+		}
+
+		if (mode == MorphEngine.Mode.CONVEX || mode == MorphEngine.Mode.FINAL) {
+			// the convex part of the final morph starts from the aligned graph
+			final int[] x0 = mode == MorphEngine.Mode.FINAL ? this.alignedX : graph0.x;
+			final int[] y0 = mode == MorphEngine.Mode.FINAL ? this.alignedY : graph0.y;
+			final long[] members = new long[(n + 63) >>> 6];
+			for (int k = 0; k < bc; ++k) {
+				members[borderNodes[k] >>> 6] |= 1L << borderNodes[k];
+			}
+			int count = 0;
+			for (final long word : members) {
+				count += Long.bitCount(word);
+			}
+			this.boundary = new int[count];
+			count = 0;
+			for (int w = 0; w < members.length; ++w) {
+				for (long word = members[w]; word != 0; word &= word - 1) {
+					this.boundary[count++] = (w << 6) + Long.numberOfTrailingZeros(word);
+				}
+			}
+			double sumX0 = 0.0, sumY0 = 0.0, sumX1 = 0.0, sumY1 = 0.0;
+			for (final int v : this.boundary) {
+				sumX0 += x0[v];
+				sumX1 += graph1.x[v];
+				sumY0 += y0[v];
+				sumY1 += graph1.y[v];
+			}
+			this.boundaryX0 = sumX0 / bc;
+			this.boundaryY0 = sumY0 / bc;
+			this.boundaryX1 = sumX1 / bc;
+			this.boundaryY1 = sumY1 / bc;
+			this.rad0 = new double[count];
+			this.rad1 = new double[count];
+			this.theta0 = new double[count];
+			this.theta1 = new double[count];
+			for (int k = 0; k < count; ++k) {
+				final int v = this.boundary[k];
+				final double dx0 = x0[v] - this.boundaryX0;
+				final double dy0 = y0[v] - this.boundaryY0;
+				final double dx1 = graph1.x[v] - this.boundaryX1;
+				final double dy1 = graph1.y[v] - this.boundaryY1;
+				this.rad0[k] = Math.sqrt(dx0 * dx0 + dy0 * dy0);
+				this.rad1[k] = Math.sqrt(dx1 * dx1 + dy1 * dy1);
+				this.theta0[k] = unwrap(Math.atan2(dy0, dx0), k == 0 ? 0.0 : this.theta0[k - 1]);
+				this.theta1[k] = unwrap(Math.atan2(dy1, dx1), k == 0 ? 0.0 : this.theta1[k - 1]);
+			}
+		} else {
+			this.boundary = null;
+			this.boundaryX0 = this.boundaryY0 = this.boundaryX1 = this.boundaryY1 = 0.0;
+			this.rad0 = this.rad1 = this.theta0 = this.theta1 = null;
+		}
+	}
+
+	/**
+	 * Colour of vertex v at frame n of n2, interpolating each channel with the
+	 * integer arithmetic of the original applet.
+	 */
+	int rgb(final int v, final int n, final int n2) {
+		final int rgb = this.rgb[v];
+		final int delta = this.rgbDelta[v];
+		return ((rgb >> 16 & 0xFF) + (delta >> 20) * n / n2) << 16 | ((rgb >> 8 & 0xFF) + (delta << 12 >> 22) * n / n2) << 8
+				| (rgb & 0xFF) + (delta << 22 >> 22) * n / n2;
+	}
+
+	/**
+	 * Adds turns to an angle until it is no less than the one before it.
+	 */
+	private static double unwrap(double theta, final double previous) {
+		while (theta < previous) {
+			theta += TWO_PI;
+		}
+		return theta;
+	}
+
+	/**
+	 * Angle, in radians, by which the rigid fit turns the initial graph towards
+	 * the final one.
+	 */
+	static double rotation(final GraphStore graph0, final GraphStore graph1) {
+		return fit(graph0, graph1)[2];
+	}
+
+	/**
+	 * Align the two graphs using 2-D transformations consisting of translation,
+	 * rotation, scaling and shearing. That is, we move the source graph as close as
+	 * possible to the destination graph as a rigid object in space.
+	 *
+	 * @return centerX, centerY, rtheta, s11, s12, s21, s22, a13 and a23
+	 */
+	private static double[] fit(final GraphStore graph0, final GraphStore graph1) {
+		double n = 0.0;
+		double n2 = 0.0;
+		double n3 = 0.0;
+		double n4 = 0.0;
+		double n5 = 0.0;
+		double n6 = 0.0;
+		double n7 = 0.0;
+		double n8 = 0.0;
+		double n9 = 0.0;
+		double n10 = 0.0;
+		double n11 = 0.0;
+		double centerX = 0;
+		double centerY = 0;
+		// calculate the center of the first set of nodes
+		for (int i = 0; i < graph0.vertexCount; ++i) {
+			centerX += graph0.x[i];
+			centerY += graph0.y[i];
+		}
+		centerX /= graph0.vertexCount;
+		centerY /= graph0.vertexCount;
+		for (int j = 0; j < graph0.vertexCount; ++j) {
+			double dxA = (graph0.x[j] - centerX) / 100.0;
+			double dyA = (graph0.y[j] - centerY) / 100.0;
+			double dxB = (graph1.x[j] - centerX) / 100.0;
+			double dyB = (graph1.y[j] - centerY) / 100.0;
+			n += dxA * dxA;
+			n2 += dyA * dyA;
+			n3 += dxA;
+			n4 += dyA;
+			n5 += dxA * dyA;
+			n6 += dxB * dyA;
+			n7 += dxB;
+			n8 += dxA * dxB;
+			n9 += dyB * dyA;
+			n10 += dyB;
+			n11 += dxA * dyB;
+		}
+		final double n13 = n5 * n5;
+		final double n14 = n4 * n4;
+		final double n15 = graph0.vertexCount;
+		final double n16 = n * (n15 * n2 - n14) - n15 * n13 + n3 * (2.0 * n4 * n5 - n3 * n2);
+		double a11 = -(n5 * (n15 * n6 - n7 * n4) + n8 * (n14 - n15 * n2) + n3 * (n7 * n2 - n4 * n6));
+		a11 /= n16;
+		double a12 = n * (n15 * n6 - n7 * n4) + n5 * (n7 * n3 - n15 * n8) + n3 * (n4 * n8 - n3 * n6);
+		a12 /= n16;
+		double a13 = n * (n7 * n2 - n4 * n6) - n7 * n13 + n5 * (n4 * n8 + n3 * n6) - n3 * n2 * n8;
+		a13 = a13 / n16 * 100.0;
+		double a21 = -(n5 * (n15 * n9 - n10 * n4) + n11 * (n14 - n15 * n2) + n3 * (n10 * n2 - n4 * n9));
+		a21 /= n16;
+		double a22 = n * (n15 * n9 - n10 * n4) + n5 * (n10 * n3 - n15 * n11) + n3 * (n4 * n11 - n3 * n9);
+		a22 /= n16;
+		double a23 = n * (n10 * n2 - n4 * n9) - n10 * n13 + n5 * (n4 * n11 + n3 * n9) - n3 * n2 * n11;
+		a23 = a23 / n16 * 100.0;
+		final double n17 = (a11 * a22 - a12 * a21 < 0.0) ? -1.0 : 1.0;
+		double q11 = a11 + n17 * a22;
+		double q12 = a12 - n17 * a21;
+		double q21 = a21 - n17 * a12;
+		double q22 = a22 + n17 * a11;
+		final double sqrt = Math.sqrt(q11 * q11 + q12 * q12);
+		q11 /= sqrt;
+		q12 /= sqrt;
+		q21 /= sqrt;
+		q22 /= sqrt;
+		final double rtheta = Math.atan2(a21, a11);
+		final double n18 = q11 * q22 - q12 * q21;
+		final double n19 = q22 / n18;
+		final double n20 = -q12 / n18;
+		final double n21 = -q21 / n18;
+		final double n22 = q11 / n18;
+		return new double[] { centerX, centerY, rtheta, n19 * a11 + n20 * a21, n19 * a12 + n20 * a22, n21 * a11 + n22 * a21,
+				n21 * a12 + n22 * a22, a13, a23 };
+	}
+}
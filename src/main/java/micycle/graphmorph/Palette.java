@@ -0,0 +1,49 @@
+package micycle.graphmorph;
+
+import java.awt.Color;
+
+/**
+ * The colours the panel draws with, quantized to 5 bits per channel. Each of
+ * the 32,768 colours is created on first use and then kept, so the palette
+ * never evicts: once playback has passed through every colour of its
+ * interpolation, drawing a frame creates no Color however many distinct
+ * colours the graph has. Quantizing moves a channel by at most 4 of 255.
+ */
+final class Palette {
+
+	private static final int BITS = 5;
+	private static final int LEVELS = (1 << BITS) - 1;
+
+	private final Color[] colors = new Color[1 << 3 * BITS];
+
+	/**
+	 * Returns the colour nearest to the packed 0xRRGGBB value.
+	 */
+	Color get(final int rgb) {
+		final int r = quantize(rgb >> 16 & 0xFF), g = quantize(rgb >> 8 & 0xFF), b = quantize(rgb & 0xFF);
+		final int slot = r << 2 * BITS | g << BITS | b;
+		Color color = this.colors[slot];
+		if (color == null) {
+			color = new Color(expand(r), expand(g), expand(b));
+			this.colors[slot] = color;
+		}
+		return color;
+	}
+
+	/**
+	 * Returns the packed 0xRRGGBB value blended towards white, keeping the given
+	 * percentage of its own colour, as nodes are drawn behind the current graph.
+	 */
+	Color faded(final int rgb, final int percent) {
+		return this.get((255 - (255 - (rgb >> 16 & 0xFF)) * percent / 100) << 16 | (255 - (255 - (rgb >> 8 & 0xFF)) * percent / 100) << 8
+				| 255 - (255 - (rgb & 0xFF)) * percent / 100);
+	}
+
+	private static int quantize(final int channel) {
+		return (channel * LEVELS + 127) / 255;
+	}
+
+	private static int expand(final int level) {
+		return (level * 255 + LEVELS / 2) / LEVELS;
+	}
+}
@@ -0,0 +1,124 @@
+package micycle.graphmorph;
+
+import java.util.Arrays;
+
+/**
+ * Faces of a plane graph, traced on the half-edges of its {@link Adjacency}.
+ * <p>
+ * The half-edge after h = (u, v) around its face is the one leaving v next to
+ * the twin (v, u) in v's angular ring, so every face is traced once and all
+ * faces together take O(E). A face is listed as the cycle of half-edges
+ * bounding it. Bridges are walked down one side and back up the other, so a
+ * vertex appears once per corner it has in the face, and a face can be weakly
+ * simple rather than simple. A component lying inside a face without touching
+ * its boundary has a cycle of its own, with the opposite orientation to the
+ * bounded faces; see {@link #area(int, int[], int[])}.
+ */
+final class PlanarFaces {
+
+	/**
+	 * Copy of the links, so the faces outlive changes to the graph.
+	 */
+	private final int[] links;
+	/**
+	 * Next half-edge around the same face, or -1 for the half-edges of
+	 * self-loops, which bound no face.
+	 */
+	final int[] next;
+	/**
+	 * Face of each half-edge, or -1 for self-loops.
+	 */
+	final int[] faceOf;
+	/**
+	 * Half-edges of face f in order: edges[offsets[f]] to
+	 * edges[offsets[f + 1] - 1].
+	 */
+	final int[] offsets;
+	final int[] edges;
+	final int faceCount;
+
+	/**
+	 * @param adjacency angular order of the graph
+	 * @param links     links the adjacency was built from
+	 * @param linkCount number of links
+	 */
+	PlanarFaces(final Adjacency adjacency, final int[] links, final int linkCount) {
+		this.links = Arrays.copyOf(links, 2 * linkCount);
+		final int halfEdgeCount = 2 * linkCount;
+		final int[] slot = new int[halfEdgeCount];
+		Arrays.fill(slot, -1);
+		final int[] ring = adjacency.halfEdges;
+		for (int i = 0; i < ring.length; ++i) {
+			slot[ring[i]] = i;
+		}
+		this.next = new int[halfEdgeCount];
+		for (int h = 0; h < halfEdgeCount; ++h) {
+			if (slot[h] == -1) {
+				this.next[h] = -1;
+				continue;
+			}
+			final int v = links[h ^ 1];
+			final int i = slot[h ^ 1] + 1;
+			this.next[h] = ring[i == adjacency.offsets[v + 1] ? adjacency.offsets[v] : i];
+		}
+
+		this.faceOf = new int[halfEdgeCount];
+		Arrays.fill(this.faceOf, -1);
+		this.edges = new int[ring.length];
+		int[] offsets = new int[16];
+		int faceCount = 0;
+		int k = 0;
+		for (int h = 0; h < halfEdgeCount; ++h) {
+			if (slot[h] == -1 || this.faceOf[h] != -1) {
+				continue;
+			}
+			if (faceCount + 1 == offsets.length) {
+				offsets = Arrays.copyOf(offsets, 2 * offsets.length);
+			}
+			offsets[faceCount] = k;
+			int g = h;
+			do {
+				this.faceOf[g] = faceCount;
+				this.edges[k++] = g;
+				g = this.next[g];
+			} while (g != h);
+			++faceCount;
+		}
+		offsets[faceCount] = k;
+		this.offsets = Arrays.copyOf(offsets, faceCount + 1);
+		this.faceCount = faceCount;
+	}
+
+	/**
+	 * Number of corners of face f.
+	 */
+	int size(final int f) {
+		return this.offsets[f + 1] - this.offsets[f];
+	}
+
+	/**
+	 * The i-th corner of face f, wrapping around the cycle.
+	 */
+	int vertex(final int f, final int i) {
+		final int size = this.size(f);
+		return this.links[this.edges[this.offsets[f] + ((i % size) + size) % size]];
+	}
+
+	/**
+	 * Twice the signed area enclosed by the cycle of face f at the given
+	 * positions. The bounded faces all have one sign, and the cycle around the
+	 * whole graph and those around components inside a face have the other sign
+	 * or, for trees, zero. A face lies on the side of its half-edges that has the
+	 * sign of the bounded faces.
+	 */
+	long area(final int f, final int[] x, final int[] y) {
+		long area = 0;
+		for (int i = this.offsets[f]; i < this.offsets[f + 1]; ++i) {
+			final int h = this.edges[i];
+			final int a = this.links[h];
+			final int b = this.links[h ^ 1];
+			area += (long) x[a] * y[b] - (long) x[b] * y[a];
+		}
+		return area;
+	}
+}
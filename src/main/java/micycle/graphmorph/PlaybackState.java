@@ -0,0 +1,79 @@
+package micycle.graphmorph;
+
+/**
+ * Immutable snapshot of animation playback: the current frame, the frame
+ * count, the play direction and whether playback is running.
+ * <p>
+ * The panel publishes the current snapshot through an
+ * {@link java.util.concurrent.atomic.AtomicReference}; every change is one of
+ * the pure transitions below applied with <code>updateAndGet</code>, so a
+ * reader on any thread sees all four fields of one consistent state.
+ */
+final class PlaybackState {
+
+	final int frame;
+	/**
+	 * Frame indices run from 0 to this value inclusive.
+	 */
+	final int totalFrames;
+	/**
+	 * 1 for forward playback, -1 for backward.
+	 */
+	final int direction;
+	final boolean playing;
+
+	PlaybackState(final int frame, final int totalFrames, final int direction, final boolean playing) {
+		this.frame = frame;
+		this.totalFrames = totalFrames;
+		this.direction = direction;
+		this.playing = playing;
+	}
+
+	/**
+	 * @return this state at the given frame, clamped to the frame range
+	 */
+	PlaybackState withFrame(final int frame) {
+		final int clamped = Math.max(0, Math.min(frame, this.totalFrames));
+		return clamped == this.frame ? this : new PlaybackState(clamped, this.totalFrames, this.direction, this.playing);
+	}
+
+	/**
+	 * @return this state with a new frame count, clamping the current frame
+	 */
+	PlaybackState withTotalFrames(final int totalFrames) {
+		return new PlaybackState(Math.min(this.frame, totalFrames), totalFrames, this.direction, this.playing);
+	}
+
+	/**
+	 * @return this state playing in the given direction
+	 */
+	PlaybackState play(final int direction) {
+		return new PlaybackState(this.frame, this.totalFrames, direction, true);
+	}
+
+	/**
+	 * @return this state with playback running or paused
+	 */
+	PlaybackState withPlaying(final boolean playing) {
+		return playing == this.playing ? this : new PlaybackState(this.frame, this.totalFrames, this.direction, playing);
+	}
+
+	/**
+	 * Steps playback after a frame was shown. Steps past the end are clamped to
+	 * the last frame, so it is still shown; playback stops when stepping from
+	 * the last frame.
+	 *
+	 * @param steps number of frames to advance by in the play direction
+	 */
+	PlaybackState advance(final int steps) {
+		if (!this.playing) {
+			return this;
+		}
+		final int end = this.direction > 0 ? this.totalFrames : 0;
+		if (this.frame == end) {
+			return new PlaybackState(this.frame, this.totalFrames, this.direction, false);
+		}
+		final long next = this.frame + (long) this.direction * steps;
+		return new PlaybackState((int) Math.max(0, Math.min(next, this.totalFrames)), this.totalFrames, this.direction, true);
+	}
+}
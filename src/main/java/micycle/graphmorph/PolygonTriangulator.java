@@ -0,0 +1,463 @@
+package micycle.graphmorph;
+
+import java.util.Arrays;
+
+/**
+ * Ear-clipping triangulation of a simple or weakly simple polygon, refined by
+ * Delaunay edge flips.
+ * <p>
+ * Polygon vertices are kept in a circular linked list and, for the ear tests,
+ * sorted along a Z-order curve, so that the reflex vertices that could block
+ * an ear are found by a range search over the ear's bounding box. With the
+ * initial sort this takes O(n log n) time on typical faces. Every predicate is
+ * an exact orientation test in long arithmetic, and all loops are iterative.
+ * <p>
+ * Ear clipping leaves long slivers, which crowd the Steiner points of the
+ * overlay together and give the convex morph badly conditioned weights, so the
+ * diagonals are then flipped until each is locally Delaunay.
+ * <p>
+ * Weakly simple polygons, which visit a vertex more than once (as faces with
+ * bridges do at both ends of each bridge), are handled by not
+ * letting vertices at an ear's own corner positions block it. A polygon in
+ * which no vertex passes the ear test, which can only happen through
+ * degeneracy, is finished by relaxing the test rather than failing.
+ */
+final class PolygonTriangulator {
+
+	/**
+	 * Resolution of each axis of the Z-order curve.
+	 */
+	private static final int Z_BITS = 15;
+
+	private final int[] x, y;
+	private final int[] prev, next;
+	/**
+	 * Vertices sorted by Z-order position, and their positions.
+	 */
+	private final int[] byZ, sortedZ;
+	/**
+	 * Union-find pointers from each rank of byZ towards the next rank whose
+	 * vertex is still in the polygon.
+	 */
+	private final int[] live;
+	private final int[] rank;
+	private final int minX, minY;
+	private final double scale;
+	/**
+	 * Whether incircle determinants fit in a long.
+	 */
+	private final boolean exact;
+	/**
+	 * Corners of triangle t, counter-clockwise: corners[3t] to corners[3t + 2]
+	 */
+	private final int[] corners;
+	/**
+	 * Diagonal opposite corner i of each triangle, or -1 for a polygon edge.
+	 */
+	private final int[] sides;
+	/**
+	 * Endpoints and the two triangles of diagonal d: ends[2d], ends[2d + 1];
+	 * faces[2d], faces[2d + 1]
+	 */
+	private final int[] ends, faces;
+	/**
+	 * Diagonal from v to next[v] while v is in the polygon, or -1 for a polygon
+	 * edge.
+	 */
+	private final int[] link;
+	private int triangleCount, diagonalCount;
+
+	/**
+	 * @param px x positions of the polygon vertices, in order
+	 * @param py y positions of the polygon vertices, in order
+	 * @param n  number of vertices
+	 */
+	private PolygonTriangulator(final int[] px, final int[] py, final int n) {
+		this.x = px;
+		this.y = py;
+		this.prev = new int[n];
+		this.next = new int[n];
+		this.byZ = new int[n];
+		this.sortedZ = new int[n];
+		this.live = new int[n + 1];
+		this.rank = new int[n];
+		long area = 0;
+		int minX = px[0], minY = py[0], maxX = px[0], maxY = py[0];
+		for (int i = 0; i < n; ++i) {
+			final int j = (i + 1) % n;
+			area += (long) px[i] * py[j] - (long) px[j] * py[i];
+			minX = Math.min(minX, px[i]);
+			minY = Math.min(minY, py[i]);
+			maxX = Math.max(maxX, px[i]);
+			maxY = Math.max(maxY, py[i]);
+		}
+		// link the vertices so that convex corners turn with positive orientation
+		for (int i = 0; i < n; ++i) {
+			final int after = (i + 1) % n;
+			final int before = (i - 1 + n) % n;
+			this.next[i] = area >= 0 ? after : before;
+			this.prev[i] = area >= 0 ? before : after;
+		}
+		this.minX = minX;
+		this.minY = minY;
+		final long extent = Math.max((long) maxX - minX, (long) maxY - minY);
+		this.scale = ((1 << Z_BITS) - 1) / (double) Math.max(1L, extent);
+		this.exact = extent < 1 << 14;
+		this.corners = new int[3 * (n - 2)];
+		this.sides = new int[3 * (n - 2)];
+		this.ends = new int[2 * (n - 3)];
+		this.faces = new int[2 * (n - 3)];
+		this.link = new int[n];
+		Arrays.fill(this.link, -1);
+
+		final long[] keys = new long[n];
+		for (int i = 0; i < n; ++i) {
+			keys[i] = (long) zOrder(this.cellX(px[i]), this.cellY(py[i])) << 32 | i;
+		}
+		Arrays.sort(keys);
+		for (int k = 0; k < n; ++k) {
+			this.byZ[k] = (int) keys[k];
+			this.sortedZ[k] = (int) (keys[k] >>> 32);
+			this.rank[this.byZ[k]] = k;
+			this.live[k] = k;
+		}
+		this.live[n] = n;
+	}
+
+	/**
+	 * Triangulates the polygon nodes[0] to nodes[numberOfNodes - 1], appending
+	 * its numberOfNodes - 3 diagonals to triangles from row numberOfTriangles
+	 * onwards as pairs of node values.
+	 *
+	 * @return the number of rows of triangles now in use
+	 */
+	static int triangulate(final int[] nodes, final int numberOfNodes, final int[][] triangles, int numberOfTriangles, final int[] nodeX,
+			final int[] nodeY) {
+		if (numberOfNodes <= 3) {
+			return numberOfTriangles;
+		}
+		final int[] px = new int[numberOfNodes];
+		final int[] py = new int[numberOfNodes];
+		for (int i = 0; i < numberOfNodes; ++i) {
+			px[i] = nodeX[nodes[i]];
+			py[i] = nodeY[nodes[i]];
+		}
+		final PolygonTriangulator polygon = new PolygonTriangulator(px, py, numberOfNodes);
+		int remaining = numberOfNodes;
+		int ear = 0;
+		int stop = ear;
+		// 0: strictly convex ears only; 1: also straight corners; 2: any corner
+		int pass = 0;
+		while (remaining > 3) {
+			final int a = polygon.prev[ear];
+			final int c = polygon.next[ear];
+			if (pass == 2 || polygon.isEar(a, ear, c, pass == 0)) {
+				polygon.clip(ear);
+				--remaining;
+				// skipping a vertex gives fewer sliver triangles
+				ear = polygon.next[c];
+				stop = ear;
+				pass = 0;
+				continue;
+			}
+			ear = polygon.next[ear];
+			if (ear == stop) {
+				++pass;
+			}
+		}
+		polygon.addTriangle(polygon.prev[ear], ear, polygon.next[ear], polygon.link[polygon.next[ear]]);
+		polygon.legalize();
+		for (int d = 0; d < polygon.diagonalCount; ++d) {
+			triangles[numberOfTriangles][0] = nodes[polygon.ends[2 * d]];
+			triangles[numberOfTriangles][1] = nodes[polygon.ends[2 * d + 1]];
+			++numberOfTriangles;
+		}
+		return numberOfTriangles;
+	}
+
+	/**
+	 * Cuts off the triangle at b, adding the diagonal between its neighbours.
+	 */
+	private void clip(final int b) {
+		final int a = this.prev[b];
+		final int c = this.next[b];
+		final int d = this.diagonalCount++;
+		this.ends[2 * d] = a;
+		this.ends[2 * d + 1] = c;
+		this.faces[2 * d] = -1;
+		this.faces[2 * d + 1] = -1;
+		this.addTriangle(a, b, c, d);
+		this.link[a] = d;
+		this.remove(b);
+	}
+
+	/**
+	 * Records triangle abc, whose sides ab and bc are the current polygon links
+	 * of a and b, and whose side ca is the given diagonal or polygon edge.
+	 */
+	private void addTriangle(final int a, final int b, final int c, final int ca) {
+		final int t = this.triangleCount++;
+		this.setTriangle(t, a, b, c, this.link[b], ca, this.link[a]);
+		for (int i = 0; i < 3; ++i) {
+			final int d = this.sides[3 * t + i];
+			if (d != -1) {
+				this.faces[2 * d + (this.faces[2 * d] == -1 ? 0 : 1)] = t;
+			}
+		}
+	}
+
+	/**
+	 * Flips diagonals until every one is locally Delaunay, which removes most of
+	 * the slivers ear clipping leaves behind.
+	 */
+	private void legalize() {
+		final int[] stack = new int[this.diagonalCount];
+		final boolean[] queued = new boolean[this.diagonalCount];
+		int top = 0;
+		for (int d = 0; d < this.diagonalCount; ++d) {
+			stack[top++] = d;
+			queued[d] = true;
+		}
+		// the bound guarantees termination should rounding ever disagree; it is a
+		// long because the square of a large face's diagonal count overflows an int
+		final long limit = 4L * this.diagonalCount * this.diagonalCount + 16;
+		for (long flips = 0; top > 0 && flips < limit;) {
+			final int d = stack[--top];
+			queued[d] = false;
+			if (this.flip(d)) {
+				++flips;
+				for (int k = 0; k < 2; ++k) {
+					final int t = this.faces[2 * d + k];
+					for (int i = 0; i < 3; ++i) {
+						final int e = this.sides[3 * t + i];
+						if (e != -1 && e != d && !queued[e]) {
+							stack[top++] = e;
+							queued[e] = true;
+						}
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Replaces diagonal d by the other diagonal of its quadrilateral if that is
+	 * strictly convex and the far corner lies inside the circumcircle of the
+	 * near triangle.
+	 */
+	private boolean flip(final int d) {
+		final int t0 = this.faces[2 * d], t1 = this.faces[2 * d + 1];
+		final int i0 = this.opposite(t0, d), i1 = this.opposite(t1, d);
+		// triangle t0 is (p, q, r) with r opposite d; t1 is (q, p, s)
+		final int r = this.corners[3 * t0 + i0];
+		final int p = this.corners[3 * t0 + (i0 + 1) % 3];
+		final int q = this.corners[3 * t0 + (i0 + 2) % 3];
+		final int s = this.corners[3 * t1 + i1];
+		if (this.orient(p, q, r) <= 0 || this.orient(q, p, s) <= 0 || this.orient(r, p, s) <= 0 || this.orient(s, q, r) <= 0
+				|| !this.inCircle(p, q, r, s)) {
+			return false;
+		}
+		final int rp = this.sides[3 * t0 + (i0 + 2) % 3], qr = this.sides[3 * t0 + (i0 + 1) % 3];
+		final int ps = this.sides[3 * t1 + (i1 + 1) % 3], sq = this.sides[3 * t1 + (i1 + 2) % 3];
+		this.ends[2 * d] = r;
+		this.ends[2 * d + 1] = s;
+		// t0 becomes (r, p, s) and t1 becomes (s, q, r)
+		this.setTriangle(t0, r, p, s, ps, d, rp);
+		this.setTriangle(t1, s, q, r, qr, d, sq);
+		this.replaceFace(ps, t1, t0);
+		this.replaceFace(qr, t0, t1);
+		return true;
+	}
+
+	private int opposite(final int t, final int d) {
+		return this.sides[3 * t] == d ? 0 : this.sides[3 * t + 1] == d ? 1 : 2;
+	}
+
+	/**
+	 * Stores triangle abc with the sides opposite a, b and c.
+	 */
+	private void setTriangle(final int t, final int a, final int b, final int c, final int bc, final int ca, final int ab) {
+		this.corners[3 * t] = a;
+		this.corners[3 * t + 1] = b;
+		this.corners[3 * t + 2] = c;
+		this.sides[3 * t] = bc;
+		this.sides[3 * t + 1] = ca;
+		this.sides[3 * t + 2] = ab;
+	}
+
+	private void replaceFace(final int d, final int from, final int to) {
+		if (d != -1) {
+			this.faces[2 * d + (this.faces[2 * d] == from ? 0 : 1)] = to;
+		}
+	}
+
+	/**
+	 * Whether s lies strictly inside the circumcircle of the counter-clockwise
+	 * triangle pqr.
+	 */
+	private boolean inCircle(final int p, final int q, final int r, final int s) {
+		final long adx = (long) this.x[p] - this.x[s], ady = (long) this.y[p] - this.y[s];
+		final long bdx = (long) this.x[q] - this.x[s], bdy = (long) this.y[q] - this.y[s];
+		final long cdx = (long) this.x[r] - this.x[s], cdy = (long) this.y[r] - this.y[s];
+		if (this.exact) {
+			return (adx * adx + ady * ady) * (bdx * cdy - cdx * bdy) + (bdx * bdx + bdy * bdy) * (cdx * ady - adx * cdy)
+					+ (cdx * cdx + cdy * cdy) * (adx * bdy - bdx * ady) > 0;
+		}
+		return (double) (adx * adx + ady * ady) * (bdx * cdy - cdx * bdy) + (double) (bdx * bdx + bdy * bdy) * (cdx * ady - adx * cdy)
+				+ (double) (cdx * cdx + cdy * cdy) * (adx * bdy - bdx * ady) > 0;
+	}
+
+	/**
+	 * Whether b is an ear with neighbours a and c: the corner is strictly convex
+	 * and no reflex or flat vertex lies in the closed triangle abc at a position
+	 * other than its corners. Unless strict, a straight corner, whose triangle is
+	 * empty, also counts.
+	 */
+	private boolean isEar(final int a, final int b, final int c, final boolean strict) {
+		final long turn = this.orient(a, b, c);
+		if (turn == 0) {
+			return !strict && ((long) this.x[a] - this.x[b]) * ((long) this.x[c] - this.x[b])
+					+ ((long) this.y[a] - this.y[b]) * ((long) this.y[c] - this.y[b]) < 0;
+		}
+		if (turn < 0) {
+			return false;
+		}
+		final int lowX = this.cellX(Math.min(this.x[a], Math.min(this.x[b], this.x[c])));
+		final int lowY = this.cellY(Math.min(this.y[a], Math.min(this.y[b], this.y[c])));
+		final int highX = this.cellX(Math.max(this.x[a], Math.max(this.x[b], this.x[c])));
+		final int highY = this.cellY(Math.max(this.y[a], Math.max(this.y[b], this.y[c])));
+		final int lowZ = zOrder(lowX, lowY);
+		final int highZ = zOrder(highX, highY);
+		// visit the vertices in the bounding box in Z-order, jumping over the
+		// runs of the curve that leave it (Tropf and Herzog's BIGMIN)
+		for (int r = this.nextLive(this.ceilingRank(lowZ)); r < this.byZ.length && this.sortedZ[r] <= highZ;) {
+			final int p = this.byZ[r];
+			final int cx = this.cellX(this.x[p]), cy = this.cellY(this.y[p]);
+			if (cx >= lowX && cx <= highX && cy >= lowY && cy <= highY) {
+				if (this.blocks(p, a, b, c)) {
+					return false;
+				}
+				r = this.nextLive(r + 1);
+			} else {
+				r = this.nextLive(this.ceilingRank(bigMin(this.sortedZ[r], lowZ, highZ)));
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Whether p, away from the corners of triangle abc, lies on the diagonal ac
+	 * or is a reflex or flat vertex in the closed triangle. A convex vertex
+	 * strictly inside an ear triangle always comes with a reflex one.
+	 */
+	private boolean blocks(final int p, final int a, final int b, final int c) {
+		if (this.same(p, a) || this.same(p, b) || this.same(p, c)) {
+			return false;
+		}
+		final long ab = this.orient(a, b, p);
+		final long bc = this.orient(b, c, p);
+		final long ca = this.orient(c, a, p);
+		if (ab < 0 || bc < 0 || ca < 0) {
+			return false;
+		}
+		return ca == 0 || this.orient(this.prev[p], p, this.next[p]) <= 0;
+	}
+
+	private void remove(final int v) {
+		this.next[this.prev[v]] = this.next[v];
+		this.prev[this.next[v]] = this.prev[v];
+		this.live[this.rank[v]] = this.rank[v] + 1;
+	}
+
+	/**
+	 * First rank at or after r whose vertex is still in the polygon, or n.
+	 */
+	private int nextLive(final int r) {
+		int root = r;
+		while (this.live[root] != root) {
+			root = this.live[root];
+		}
+		for (int i = r; this.live[i] != root;) {
+			final int up = this.live[i];
+			this.live[i] = root;
+			i = up;
+		}
+		return root;
+	}
+
+	/**
+	 * First rank whose Z-order position is at least z.
+	 */
+	private int ceilingRank(final int z) {
+		int low = 0, high = this.sortedZ.length;
+		while (low < high) {
+			final int mid = (low + high) >>> 1;
+			if (this.sortedZ[mid] < z) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * Smallest Z-order position above z inside the box with corners at lowZ and
+	 * highZ, for a z between them that lies outside the box.
+	 */
+	private static int bigMin(final int z, int lowZ, int highZ) {
+		int bigMin = 0;
+		for (int bit = 2 * Z_BITS - 1; bit >= 0; --bit) {
+			final int mask = 1 << bit;
+			// the lower bits of the same axis
+			final int axis = ((bit & 1) == 0 ? 0x55555555 : 0xAAAAAAAA) & (mask - 1);
+			final boolean v = (z & mask) != 0, low = (lowZ & mask) != 0, high = (highZ & mask) != 0;
+			if (!v && !low && high) {
+				bigMin = (lowZ | mask) & ~axis;
+				highZ = highZ & ~mask | axis;
+			} else if (!v && low) {
+				return lowZ;
+			} else if (v && !low && !high) {
+				return bigMin;
+			} else if (v && !low) {
+				lowZ = (lowZ | mask) & ~axis;
+			}
+		}
+		return bigMin;
+	}
+
+	private boolean same(final int p, final int q) {
+		return this.x[p] == this.x[q] && this.y[p] == this.y[q];
+	}
+
+	private long orient(final int a, final int b, final int c) {
+		return ((long) this.x[b] - this.x[a]) * ((long) this.y[c] - this.y[a]) - ((long) this.y[b] - this.y[a]) * ((long) this.x[c] - this.x[a]);
+	}
+
+	private int cellX(final int px) {
+		return (int) ((px - (long) this.minX) * this.scale);
+	}
+
+	private int cellY(final int py) {
+		return (int) ((py - (long) this.minY) * this.scale);
+	}
+
+	/**
+	 * Position of a cell along the Z-order curve; monotone in each coordinate,
+	 * so every cell of a box lies between the positions of its corners.
+	 */
+	private static int zOrder(final int cx, final int cy) {
+		return spread(cx) | spread(cy) << 1;
+	}
+
+	/**
+	 * Interleaves the low 16 bits of v with zeros.
+	 */
+	private static int spread(int v) {
+		v = (v | v << 8) & 0x00FF00FF;
+		v = (v | v << 4) & 0x0F0F0F0F;
+		v = (v | v << 2) & 0x33333333;
+		v = (v | v << 1) & 0x55555555;
+		return v;
+	}
+}
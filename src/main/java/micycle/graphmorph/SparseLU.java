@@ -0,0 +1,311 @@
+package micycle.graphmorph;
+
+import java.util.Arrays;
+
+/**
+ * Sparse LU factorization for square systems with a symmetric nonzero pattern.
+ * <p>
+ * The symbolic phase runs once, in the constructor: it picks a minimum-degree
+ * elimination order and computes the filled pattern of the factors. Each call
+ * to {@link #factor(double[])} then only redoes the numeric work for new values
+ * on the same pattern, row by row into a dense work vector. No pivoting is
+ * done, which is safe for the diagonally dominant systems produced by convex
+ * combination weights.
+ */
+final class SparseLU {
+
+	final int size;
+	/**
+	 * Input pattern: the columns of row r are
+	 * <code>cols[rowPtr[r]]</code> up to <code>cols[rowPtr[r + 1] - 1]</code>.
+	 */
+	private final int[] rowPtr;
+	private final int[] cols;
+	/**
+	 * Elimination order: perm[p] = row eliminated at step p; inv[row] = p.
+	 */
+	private final int[] perm;
+	private final int[] inv;
+	/**
+	 * Strictly lower part of the factor by eliminated row, in ascending order.
+	 */
+	private final int[] lowerPtr;
+	private final int[] lowerIdx;
+	private final double[] lower;
+	/**
+	 * Strictly upper part of the factor by eliminated row.
+	 */
+	private final int[] upperPtr;
+	private final int[] upperIdx;
+	private final double[] upper;
+	private final double[] diag;
+	private final double[] work;
+	/**
+	 * Interleaved intermediate vectors of a two-column solve.
+	 */
+	private final double[] pair;
+
+	/**
+	 * Computes the elimination order and the filled pattern for the given
+	 * pattern. The pattern must be symmetric; the diagonal may be omitted.
+	 */
+	SparseLU(final int size, final int[] rowPtr, final int[] cols) {
+		this.size = size;
+		this.rowPtr = rowPtr;
+		this.cols = cols;
+		this.perm = new int[size];
+		this.inv = new int[size];
+		this.upperPtr = new int[size + 1];
+		int[] upperIdx = new int[Math.max(16, rowPtr[size])];
+
+		// minimum-degree elimination on an explicit elimination graph
+		final int[][] adj = new int[size][];
+		final int[] degree = new int[size];
+		final boolean[] eliminated = new boolean[size];
+		final int[] mark = new int[size];
+		Arrays.fill(mark, -1);
+		final LongHeap heap = new LongHeap(size);
+		for (int r = 0; r < size; ++r) {
+			adj[r] = new int[rowPtr[r + 1] - rowPtr[r]];
+			for (int k = rowPtr[r]; k < rowPtr[r + 1]; ++k) {
+				if (cols[k] != r) {
+					adj[r][degree[r]++] = cols[k];
+				}
+			}
+			heap.push(((long) degree[r] << 32) | r);
+		}
+		int stamp = 0;
+		int[] clique = new int[16];
+		for (int p = 0; p < size; ++p) {
+			int v;
+			long top;
+			do {
+				top = heap.pop();
+				v = (int) top;
+			} while (eliminated[v] || (int) (top >>> 32) != degree[v]);
+			eliminated[v] = true;
+			this.perm[p] = v;
+			this.inv[v] = p;
+			int c = 0;
+			for (int k = 0; k < degree[v]; ++k) {
+				final int u = adj[v][k];
+				if (!eliminated[u]) {
+					if (c == clique.length) {
+						clique = Arrays.copyOf(clique, 2 * c);
+					}
+					clique[c++] = u;
+				}
+			}
+			adj[v] = null;
+			if (this.upperPtr[p] + c > upperIdx.length) {
+				upperIdx = Arrays.copyOf(upperIdx, Math.max(this.upperPtr[p] + c, upperIdx.length + (upperIdx.length >> 1)));
+			}
+			System.arraycopy(clique, 0, upperIdx, this.upperPtr[p], c);
+			this.upperPtr[p + 1] = this.upperPtr[p] + c;
+			// the remaining neighbours of v become a clique
+			for (int i = 0; i < c; ++i) {
+				final int a = clique[i];
+				++stamp;
+				int kept = 0;
+				for (int k = 0; k < degree[a]; ++k) {
+					final int u = adj[a][k];
+					if (!eliminated[u]) {
+						adj[a][kept++] = u;
+						mark[u] = stamp;
+					}
+				}
+				mark[a] = stamp;
+				for (int j = 0; j < c; ++j) {
+					final int b = clique[j];
+					if (mark[b] != stamp) {
+						if (kept == adj[a].length) {
+							adj[a] = Arrays.copyOf(adj[a], Math.max(4, 2 * kept));
+						}
+						adj[a][kept++] = b;
+						mark[b] = stamp;
+					}
+				}
+				degree[a] = kept;
+				heap.push(((long) kept << 32) | a);
+			}
+		}
+
+		// renumber the upper pattern by elimination step and transpose it
+		final int nnz = this.upperPtr[size];
+		this.upperIdx = Arrays.copyOf(upperIdx, nnz);
+		this.lowerPtr = new int[size + 1];
+		for (int k = 0; k < nnz; ++k) {
+			this.upperIdx[k] = this.inv[this.upperIdx[k]];
+			++this.lowerPtr[this.upperIdx[k] + 1];
+		}
+		for (int p = 0; p < size; ++p) {
+			this.lowerPtr[p + 1] += this.lowerPtr[p];
+		}
+		this.lowerIdx = new int[nnz];
+		final int[] fill = Arrays.copyOf(this.lowerPtr, size);
+		for (int p = 0; p < size; ++p) {
+			for (int k = this.upperPtr[p]; k < this.upperPtr[p + 1]; ++k) {
+				this.lowerIdx[fill[this.upperIdx[k]]++] = p;
+			}
+		}
+		this.lower = new double[nnz];
+		this.upper = new double[nnz];
+		this.diag = new double[size];
+		this.work = new double[size];
+		this.pair = new double[2 * size];
+	}
+
+	/**
+	 * Shares the symbolic factorization of another instance, with separate
+	 * numeric storage.
+	 */
+	private SparseLU(final SparseLU symbolic) {
+		this.size = symbolic.size;
+		this.rowPtr = symbolic.rowPtr;
+		this.cols = symbolic.cols;
+		this.perm = symbolic.perm;
+		this.inv = symbolic.inv;
+		this.lowerPtr = symbolic.lowerPtr;
+		this.lowerIdx = symbolic.lowerIdx;
+		this.upperPtr = symbolic.upperPtr;
+		this.upperIdx = symbolic.upperIdx;
+		this.lower = new double[symbolic.lower.length];
+		this.upper = new double[symbolic.upper.length];
+		this.diag = new double[this.size];
+		this.work = new double[this.size];
+		this.pair = new double[2 * this.size];
+	}
+
+	/**
+	 * Returns a factorization with the same symbolic structure that can be used
+	 * from another thread.
+	 */
+	SparseLU fork() {
+		return new SparseLU(this);
+	}
+
+	/**
+	 * Number of nonzeros in the strictly lower (or upper) factor, including
+	 * fill-in.
+	 */
+	int fillCount() {
+		return this.upperPtr[this.size];
+	}
+
+	/**
+	 * Numeric factorization of the matrix with the given values, aligned with the
+	 * pattern passed to the constructor.
+	 */
+	void factor(final double[] values) {
+		final double[] w = this.work;
+		for (int p = 0; p < this.size; ++p) {
+			final int r = this.perm[p];
+			for (int k = this.rowPtr[r]; k < this.rowPtr[r + 1]; ++k) {
+				w[this.inv[this.cols[k]]] += values[k];
+			}
+			for (int k = this.lowerPtr[p]; k < this.lowerPtr[p + 1]; ++k) {
+				final int q = this.lowerIdx[k];
+				final double m = w[q] / this.diag[q];
+				this.lower[k] = m;
+				w[q] = 0.0;
+				for (int j = this.upperPtr[q]; j < this.upperPtr[q + 1]; ++j) {
+					w[this.upperIdx[j]] -= m * this.upper[j];
+				}
+			}
+			this.diag[p] = w[p];
+			w[p] = 0.0;
+			for (int k = this.upperPtr[p]; k < this.upperPtr[p + 1]; ++k) {
+				this.upper[k] = w[this.upperIdx[k]];
+				w[this.upperIdx[k]] = 0.0;
+			}
+		}
+	}
+
+	/**
+	 * Solves the last factored system for two right-hand sides at once, sharing
+	 * each pass over the factors. Vectors are indexed by row; a solution array
+	 * may be the same as its right-hand side.
+	 */
+	void solve(final double[] b0, final double[] b1, final double[] x0, final double[] x1) {
+		final double[] y = this.pair;
+		for (int p = 0; p < this.size; ++p) {
+			double sum0 = b0[this.perm[p]];
+			double sum1 = b1[this.perm[p]];
+			for (int k = this.lowerPtr[p]; k < this.lowerPtr[p + 1]; ++k) {
+				final double l = this.lower[k];
+				final int q = 2 * this.lowerIdx[k];
+				sum0 -= l * y[q];
+				sum1 -= l * y[q + 1];
+			}
+			y[2 * p] = sum0;
+			y[2 * p + 1] = sum1;
+		}
+		for (int p = this.size - 1; p >= 0; --p) {
+			double sum0 = y[2 * p];
+			double sum1 = y[2 * p + 1];
+			for (int k = this.upperPtr[p]; k < this.upperPtr[p + 1]; ++k) {
+				final double u = this.upper[k];
+				final int q = 2 * this.upperIdx[k];
+				sum0 -= u * y[q];
+				sum1 -= u * y[q + 1];
+			}
+			y[2 * p] = sum0 / this.diag[p];
+			y[2 * p + 1] = sum1 / this.diag[p];
+		}
+		for (int p = 0; p < this.size; ++p) {
+			x0[this.perm[p]] = y[2 * p];
+			x1[this.perm[p]] = y[2 * p + 1];
+		}
+	}
+
+	/**
+	 * Minimal binary min-heap of packed (key, value) longs.
+	 */
+	private static final class LongHeap {
+
+		private long[] heap;
+		private int size;
+
+		LongHeap(final int capacity) {
+			this.heap = new long[Math.max(16, capacity)];
+		}
+
+		void push(final long e) {
+			if (this.size == this.heap.length) {
+				this.heap = Arrays.copyOf(this.heap, this.size + (this.size >> 1));
+			}
+			int i = this.size++;
+			while (i > 0) {
+				final int parent = (i - 1) >>> 1;
+				if (this.heap[parent] <= e) {
+					break;
+				}
+				this.heap[i] = this.heap[parent];
+				i = parent;
+			}
+			this.heap[i] = e;
+		}
+
+		long pop() {
+			final long top = this.heap[0];
+			final long e = this.heap[--this.size];
+			int i = 0;
+			while (true) {
+				int child = 2 * i + 1;
+				if (child >= this.size) {
+					break;
+				}
+				if (child + 1 < this.size && this.heap[child + 1] < this.heap[child]) {
+					++child;
+				}
+				if (this.heap[child] >= e) {
+					break;
+				}
+				this.heap[i] = this.heap[child];
+				i = child;
+			}
+			this.heap[i] = e;
+			return top;
+		}
+	}
+}
@@ -0,0 +1,270 @@
+package micycle.graphmorph;
+
+import java.util.Arrays;
+
+/**
+ * Uniform grid over the vertices and links of a {@link GraphStore}, answering
+ * segment-crossing and point-pick queries by visiting only the cells a query
+ * touches.
+ * <p>
+ * The grid has roughly one cell per link. A link is listed in every cell its
+ * segment passes through, so a crossing query tests only the links sharing a
+ * cell with the query segment. The index is a snapshot: it records the store's
+ * {@link GraphStore#modCount} and must be rebuilt once
+ * {@link #isCurrent(GraphStore)} turns false.
+ */
+final class SpatialIndex {
+
+	/**
+	 * Upper bound on the cells per side, bounding memory for very large graphs.
+	 */
+	private static final int MAX_SIDE = 512;
+
+	private final GraphStore graph;
+	private final int modCount;
+	private final int minX, minY;
+	private final int cellSize;
+	private final int cols, rows;
+	/**
+	 * Links of cell c: linkItems[linkStart[c]] to linkItems[linkStart[c + 1] - 1]
+	 */
+	private final int[] linkStart;
+	private final int[] linkItems;
+	/**
+	 * Vertices of cell c, in ascending index order: vertexItems[vertexStart[c]]
+	 * to vertexItems[vertexStart[c + 1] - 1]
+	 */
+	private final int[] vertexStart;
+	private final int[] vertexItems;
+
+	SpatialIndex(final GraphStore graph) {
+		this.graph = graph;
+		this.modCount = graph.modCount;
+		final int[] x = graph.x;
+		final int[] y = graph.y;
+		int minX = 0, minY = 0, maxX = 0, maxY = 0;
+		if (graph.vertexCount > 0) {
+			minX = maxX = x[0];
+			minY = maxY = y[0];
+		}
+		for (int v = 1; v < graph.vertexCount; ++v) {
+			minX = Math.min(minX, x[v]);
+			maxX = Math.max(maxX, x[v]);
+			minY = Math.min(minY, y[v]);
+			maxY = Math.max(maxY, y[v]);
+		}
+		final int side = Math.min(MAX_SIDE, Math.max(1, (int) Math.ceil(Math.sqrt(Math.max(graph.linkCount, graph.vertexCount)))));
+		final long extent = Math.max((long) maxX - minX, (long) maxY - minY) + 1;
+		this.minX = minX;
+		this.minY = minY;
+		this.cellSize = (int) Math.max(1, (extent + side - 1) / side);
+		this.cols = (int) (((long) maxX - minX) / this.cellSize) + 1;
+		this.rows = (int) (((long) maxY - minY) / this.cellSize) + 1;
+		final int cells = this.cols * this.rows;
+
+		this.vertexStart = new int[cells + 1];
+		for (int v = 0; v < graph.vertexCount; ++v) {
+			++this.vertexStart[this.cell(x[v], y[v]) + 1];
+		}
+		for (int c = 0; c < cells; ++c) {
+			this.vertexStart[c + 1] += this.vertexStart[c];
+		}
+		this.vertexItems = new int[graph.vertexCount];
+		final int[] fill = new int[cells];
+		for (int v = 0; v < graph.vertexCount; ++v) {
+			final int c = this.cell(x[v], y[v]);
+			this.vertexItems[this.vertexStart[c] + fill[c]++] = v;
+		}
+
+		this.linkStart = new int[cells + 1];
+		final int[] links = graph.links;
+		for (int e = 0; e < graph.linkCount; ++e) {
+			final int a = links[2 * e], b = links[2 * e + 1];
+			this.rasterize(x[a], y[a], x[b], y[b], -1, null);
+		}
+		for (int c = 0; c < cells; ++c) {
+			this.linkStart[c + 1] += this.linkStart[c];
+		}
+		this.linkItems = new int[this.linkStart[cells]];
+		Arrays.fill(fill, 0);
+		for (int e = 0; e < graph.linkCount; ++e) {
+			final int a = links[2 * e], b = links[2 * e + 1];
+			this.rasterize(x[a], y[a], x[b], y[b], e, fill);
+		}
+	}
+
+	/**
+	 * @return true if the graph has not changed since this index was built
+	 */
+	boolean isCurrent(final GraphStore graph) {
+		return graph == this.graph && graph.modCount == this.modCount;
+	}
+
+	/**
+	 * Determines whether the segment (x1, y1)-(x2, y2) properly crosses any link,
+	 * that is, whether the two segments share a point interior to both. Touching
+	 * at an endpoint and collinear overlap do not count, so a segment ending at a
+	 * vertex does not cross the links incident to it.
+	 */
+	boolean crosses(final int x1, final int y1, final int x2, final int y2) {
+		final int ylo = Math.min(y1, y2), yhi = Math.max(y1, y2);
+		final int r0 = this.row(ylo), r1 = this.row(yhi);
+		for (int r = r0; r <= r1; ++r) {
+			final int c0 = this.spanStart(x1, y1, x2, y2, r), c1 = this.spanEnd(x1, y1, x2, y2, r);
+			for (int c = c0; c <= c1; ++c) {
+				final int cell = r * this.cols + c;
+				for (int i = this.linkStart[cell]; i < this.linkStart[cell + 1]; ++i) {
+					final int e = this.linkItems[i];
+					final int a = this.graph.links[2 * e], b = this.graph.links[2 * e + 1];
+					if (properlyCross(x1, y1, x2, y2, this.graph.x[a], this.graph.y[a], this.graph.x[b], this.graph.y[b])) {
+						return true;
+					}
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Determines whether a vertex lies on the segment (x1, y1)-(x2, y2) strictly
+	 * between its endpoints, which {@link #crosses(int, int, int, int)} does not
+	 * report.
+	 */
+	boolean touchesVertex(final int x1, final int y1, final int x2, final int y2) {
+		final long dx = (long) x2 - x1, dy = (long) y2 - y1;
+		final long length = dx * dx + dy * dy;
+		final int r0 = this.row(Math.min(y1, y2)), r1 = this.row(Math.max(y1, y2));
+		for (int r = r0; r <= r1; ++r) {
+			final int c0 = this.spanStart(x1, y1, x2, y2, r), c1 = this.spanEnd(x1, y1, x2, y2, r);
+			for (int c = c0; c <= c1; ++c) {
+				final int cell = r * this.cols + c;
+				for (int i = this.vertexStart[cell]; i < this.vertexStart[cell + 1]; ++i) {
+					final int v = this.vertexItems[i];
+					final int vx = this.graph.x[v], vy = this.graph.y[v];
+					if (orient(x1, y1, x2, y2, vx, vy) == 0) {
+						final long along = (vx - (long) x1) * dx + (vy - (long) y1) * dy;
+						if (along > 0 && along < length) {
+							return true;
+						}
+					}
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Returns the lowest-indexed vertex v with <code>x[v] &lt; px &lt; x[v] + size</code>
+	 * and <code>y[v] &lt; py &lt; y[v] + size</code>, or -1 if there is none; this
+	 * is the vertex a linear scan of the store would find first.
+	 */
+	int pick(final int px, final int py, final int size) {
+		int found = -1;
+		final int c0 = this.col(px - size + 1), c1 = this.col(px - 1);
+		final int r0 = this.row(py - size + 1), r1 = this.row(py - 1);
+		for (int r = r0; r <= r1; ++r) {
+			for (int c = c0; c <= c1; ++c) {
+				final int cell = r * this.cols + c;
+				for (int i = this.vertexStart[cell]; i < this.vertexStart[cell + 1]; ++i) {
+					final int v = this.vertexItems[i];
+					if (found != -1 && v > found) {
+						break;
+					}
+					final int vx = this.graph.x[v], vy = this.graph.y[v];
+					if (px > vx && px < vx + size && py > vy && py < vy + size) {
+						found = v;
+						break;
+					}
+				}
+			}
+		}
+		return found;
+	}
+
+	/**
+	 * Exact proper-crossing test of segments p1p2 and q1q2 on 64-bit
+	 * orientations.
+	 */
+	static boolean properlyCross(final int px1, final int py1, final int px2, final int py2, final int qx1, final int qy1, final int qx2,
+			final int qy2) {
+		final long d1 = orient(px1, py1, px2, py2, qx1, qy1);
+		final long d2 = orient(px1, py1, px2, py2, qx2, qy2);
+		if (d1 == 0 || d2 == 0 || (d1 > 0) == (d2 > 0)) {
+			return false;
+		}
+		final long d3 = orient(qx1, qy1, qx2, qy2, px1, py1);
+		final long d4 = orient(qx1, qy1, qx2, qy2, px2, py2);
+		return d3 != 0 && d4 != 0 && (d3 > 0) != (d4 > 0);
+	}
+
+	private static long orient(final int ax, final int ay, final int bx, final int by, final int cx, final int cy) {
+		return ((long) bx - ax) * ((long) cy - ay) - ((long) by - ay) * ((long) cx - ax);
+	}
+
+	/**
+	 * Adds link e to every cell its segment passes through, or only counts the
+	 * cells when fill is null.
+	 */
+	private void rasterize(final int x1, final int y1, final int x2, final int y2, final int e, final int[] fill) {
+		final int r0 = this.row(Math.min(y1, y2)), r1 = this.row(Math.max(y1, y2));
+		for (int r = r0; r <= r1; ++r) {
+			final int c0 = this.spanStart(x1, y1, x2, y2, r), c1 = this.spanEnd(x1, y1, x2, y2, r);
+			for (int c = c0; c <= c1; ++c) {
+				final int cell = r * this.cols + c;
+				if (fill == null) {
+					++this.linkStart[cell + 1];
+				} else {
+					this.linkItems[this.linkStart[cell] + fill[cell]++] = e;
+				}
+			}
+		}
+	}
+
+	/**
+	 * First column the segment reaches within row r, padded by a unit so that
+	 * rounding never drops a cell.
+	 */
+	private int spanStart(final int x1, final int y1, final int x2, final int y2, final int r) {
+		if (y1 == y2) {
+			return this.col(Math.min(x1, x2) - 1);
+		}
+		return this.col((int) Math.floor(Math.min(xAt(x1, y1, x2, y2, this.rowTop(r, y1, y2)), xAt(x1, y1, x2, y2, this.rowBottom(r, y1, y2)))) - 1);
+	}
+
+	private int spanEnd(final int x1, final int y1, final int x2, final int y2, final int r) {
+		if (y1 == y2) {
+			return this.col(Math.max(x1, x2) + 1);
+		}
+		return this.col((int) Math.ceil(Math.max(xAt(x1, y1, x2, y2, this.rowTop(r, y1, y2)), xAt(x1, y1, x2, y2, this.rowBottom(r, y1, y2)))) + 1);
+	}
+
+	/**
+	 * Top of row r, clipped to the segment's y-range.
+	 */
+	private double rowTop(final int r, final int y1, final int y2) {
+		return Math.max(Math.min(y1, y2), (double) this.minY + (double) r * this.cellSize);
+	}
+
+	private double rowBottom(final int r, final int y1, final int y2) {
+		return Math.min(Math.max(y1, y2), (double) this.minY + (double) (r + 1) * this.cellSize);
+	}
+
+	/**
+	 * X coordinate of a non-horizontal segment at height y.
+	 */
+	private static double xAt(final int x1, final int y1, final int x2, final int y2, final double y) {
+		return x1 + (double) ((long) x2 - x1) * (y - y1) / ((long) y2 - y1);
+	}
+
+	private int cell(final int x, final int y) {
+		return this.row(y) * this.cols + this.col(x);
+	}
+
+	private int col(final int x) {
+		return (int) Math.max(0, Math.min(this.cols - 1, Math.floorDiv((long) x - this.minX, this.cellSize)));
+	}
+
+	private int row(final int y) {
+		return (int) Math.max(0, Math.min(this.rows - 1, Math.floorDiv((long) y - this.minY, this.cellSize)));
+	}
+}
@@ -0,0 +1,294 @@
+package micycle.graphmorph;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * In-memory {@link MetricsRegistry} keeping a counter or histogram per name.
+ * <p>
+ * Histograms bucket values by their power of two with eight linear
+ * sub-buckets, so quantiles are accurate to within 12.5% in constant memory,
+ * and recording is lock-free. After {@link #register(MBeanServer)}, every
+ * metric, including ones created later, is an MXBean named
+ * <code>micycle.graphmorph:type=Counter|Timer|Histogram,registry=&lt;id&gt;,name=&lt;metric&gt;</code>,
+ * where the id, from {@link #getId()}, tells apart the metrics of registries
+ * that share a server, such as those of two engines.
+ */
+public final class StageMetrics implements MetricsRegistry {
+
+	static final String DOMAIN = "micycle.graphmorph";
+
+	private static final AtomicInteger NEXT_ID = new AtomicInteger();
+
+	/**
+	 * JMX view of a counter.
+	 */
+	public interface CounterMXBean {
+
+		long getCount();
+	}
+
+	/**
+	 * JMX view of a timer or value histogram. Timer values are in nanoseconds.
+	 */
+	public interface HistogramMXBean {
+
+		long getCount();
+
+		long getSum();
+
+		double getMean();
+
+		long getMax();
+
+		long getP50();
+
+		long getP90();
+
+		long getP99();
+	}
+
+	private final Map<String, Counter> counters;
+	private final Map<String, Histogram> timers;
+	private final Map<String, Histogram> histograms;
+	private final int id;
+	private volatile MBeanServer server;
+
+	public StageMetrics() {
+		this.id = NEXT_ID.getAndIncrement();
+		this.counters = new ConcurrentHashMap<>();
+		this.timers = new ConcurrentHashMap<>();
+		this.histograms = new ConcurrentHashMap<>();
+	}
+
+	/**
+	 * @return the value of the <code>registry</code> key in the names of this
+	 *         registry's MXBeans, unique within the JVM
+	 */
+	public int getId() {
+		return this.id;
+	}
+
+	/**
+	 * Registers all metrics with the platform MBean server.
+	 */
+	public void register() {
+		this.register(ManagementFactory.getPlatformMBeanServer());
+	}
+
+	/**
+	 * Registers all metrics, and every metric created from now on, with the
+	 * given MBean server.
+	 */
+	public synchronized void register(final MBeanServer server) {
+		this.server = server;
+		this.counters.forEach((name, counter) -> this.expose("Counter", name, counter));
+		this.timers.forEach((name, timer) -> this.expose("Timer", name, timer));
+		this.histograms.forEach((name, histogram) -> this.expose("Histogram", name, histogram));
+	}
+
+	@Override
+	public void increment(final String counter, final long delta) {
+		Counter c = this.counters.get(counter);
+		if (c == null) {
+			c = this.create(this.counters, "Counter", counter, new Counter());
+		}
+		c.count.add(delta);
+	}
+
+	@Override
+	public void recordNanos(final String timer, final long nanos) {
+		Histogram h = this.timers.get(timer);
+		if (h == null) {
+			h = this.create(this.timers, "Timer", timer, new Histogram());
+		}
+		h.record(nanos);
+	}
+
+	@Override
+	public void recordValue(final String histogram, final long value) {
+		Histogram h = this.histograms.get(histogram);
+		if (h == null) {
+			h = this.create(this.histograms, "Histogram", histogram, new Histogram());
+		}
+		h.record(value);
+	}
+
+	/**
+	 * @return the counter of the given name, or null if nothing was counted
+	 */
+	public CounterMXBean counter(final String name) {
+		return this.counters.get(name);
+	}
+
+	/**
+	 * @return the timer of the given name, or null if nothing was timed
+	 */
+	public HistogramMXBean timer(final String name) {
+		return this.timers.get(name);
+	}
+
+	/**
+	 * @return the value histogram of the given name, or null if nothing was
+	 *         recorded
+	 */
+	public HistogramMXBean histogram(final String name) {
+		return this.histograms.get(name);
+	}
+
+	/**
+	 * One line per metric, sorted by name; timers in microseconds.
+	 */
+	@Override
+	public String toString() {
+		final StringBuilder sb = new StringBuilder();
+		new TreeMap<>(this.counters).forEach((name, c) -> sb.append(name).append(" count=").append(c.getCount()).append('\n'));
+		new TreeMap<>(this.timers).forEach((name, h) -> sb.append(name)
+				.append(String.format(" count=%d mean=%.1fus p50=%dus p99=%dus max=%dus%n", h.getCount(), h.getMean() / 1e3,
+						h.getP50() / 1000, h.getP99() / 1000, h.getMax() / 1000)));
+		new TreeMap<>(this.histograms).forEach((name, h) -> sb.append(name).append(String.format(" count=%d mean=%.1f p50=%d p99=%d max=%d%n",
+				h.getCount(), h.getMean(), h.getP50(), h.getP99(), h.getMax())));
+		return sb.toString();
+	}
+
+	private <T> T create(final Map<String, T> metrics, final String type, final String name, final T metric) {
+		synchronized (this) {
+			final T existing = metrics.putIfAbsent(name, metric);
+			if (existing != null) {
+				return existing;
+			}
+			if (this.server != null) {
+				this.expose(type, name, metric);
+			}
+			return metric;
+		}
+	}
+
+	private void expose(final String type, final String name, final Object metric) {
+		try {
+			final ObjectName objectName = new ObjectName(
+					DOMAIN + ":type=" + type + ",registry=" + this.id + ",name=" + ObjectName.quote(name));
+			if (!this.server.isRegistered(objectName)) {
+				this.server.registerMBean(metric, objectName);
+			}
+		} catch (final JMException e) {
+			throw new IllegalStateException("cannot register metric " + name, e);
+		}
+	}
+
+	private static final class Counter implements CounterMXBean {
+
+		final LongAdder count = new LongAdder();
+
+		@Override
+		public long getCount() {
+			return this.count.sum();
+		}
+	}
+
+	private static final class Histogram implements HistogramMXBean {
+
+		/**
+		 * log2 of the number of linear sub-buckets per power of two.
+		 */
+		private static final int SUB_BITS = 3;
+		private static final int SUB_COUNT = 1 << SUB_BITS;
+
+		private final AtomicLongArray buckets = new AtomicLongArray((64 - SUB_BITS + 1) * SUB_COUNT);
+		private final LongAdder count = new LongAdder();
+		private final LongAdder sum = new LongAdder();
+		private final AtomicLong max = new AtomicLong();
+
+		void record(final long value) {
+			final long v = Math.max(0, value);
+			this.buckets.incrementAndGet(bucket(v));
+			this.count.increment();
+			this.sum.add(v);
+			this.max.accumulateAndGet(v, Math::max);
+		}
+
+		private static int bucket(final long v) {
+			if (v < SUB_COUNT) {
+				return (int) v;
+			}
+			final int exp = 63 - Long.numberOfLeadingZeros(v);
+			return (exp - SUB_BITS + 1) * SUB_COUNT + (int) ((v >>> (exp - SUB_BITS)) & (SUB_COUNT - 1));
+		}
+
+		/**
+		 * Largest value that falls into a bucket.
+		 */
+		private static long upperBound(final int b) {
+			if (b < SUB_COUNT) {
+				return b;
+			}
+			final int shift = b / SUB_COUNT - 1;
+			return ((long) (SUB_COUNT + b % SUB_COUNT + 1) << shift) - 1;
+		}
+
+		private long quantile(final double q) {
+			long total = 0;
+			for (int b = 0; b < this.buckets.length(); ++b) {
+				total += this.buckets.get(b);
+			}
+			if (total == 0) {
+				return 0;
+			}
+			final long rank = (long) Math.ceil(q * total);
+			long seen = 0;
+			for (int b = 0; b < this.buckets.length(); ++b) {
+				seen += this.buckets.get(b);
+				if (seen >= rank) {
+					return Math.min(upperBound(b), this.max.get());
+				}
+			}
+			return this.max.get();
+		}
+
+		@Override
+		public long getCount() {
+			return this.count.sum();
+		}
+
+		@Override
+		public long getSum() {
+			return this.sum.sum();
+		}
+
+		@Override
+		public double getMean() {
+			final long n = this.count.sum();
+			return n == 0 ? 0.0 : (double) this.sum.sum() / n;
+		}
+
+		@Override
+		public long getMax() {
+			return this.max.get();
+		}
+
+		@Override
+		public long getP50() {
+			return this.quantile(0.50);
+		}
+
+		@Override
+		public long getP90() {
+			return this.quantile(0.90);
+		}
+
+		@Override
+		public long getP99() {
+			return this.quantile(0.99);
+		}
+	}
+}
@@ -0,0 +1,278 @@
+package micycle.graphmorph;
+
+import java.util.Arrays;
+
+/**
+ * Overlay of two triangulations of the same polygon, drawn on a convex
+ * reference polygon, which yields the Steiner points of a compatible
+ * triangulation.
+ * <p>
+ * On a convex polygon two diagonals cross exactly when their endpoints
+ * interleave, so the overlay is combinatorial. Each diagonal of the second
+ * triangulation is walked through the triangles of the first, from its first
+ * endpoint, crossing one diagonal per step; the crossings along a diagonal of
+ * the first triangulation are ordered by where the crossing diagonals end.
+ * Time is O((n + k) log n) and memory O(n + k) for k crossings, instead of
+ * the n-by-n tables of testing every pair of diagonals.
+ * <p>
+ * Polygon vertices are numbered 0 to n - 1 in order, and crossing s is the
+ * overlay vertex n + s.
+ */
+final class SteinerOverlay {
+
+	/**
+	 * Crossings along one diagonal are sorted on keys packing two vertex
+	 * distances and an index into 21 bits each.
+	 */
+	private static final int MAX_VERTICES = 1 << 21;
+
+	final int n;
+	/**
+	 * Number of crossings.
+	 */
+	final int crossings;
+	/**
+	 * Diagonal of each triangulation passing through crossing s.
+	 */
+	final int[] crossing0, crossing1;
+	/**
+	 * Position of crossing s along its diagonal of each triangulation, from 0 at
+	 * the diagonal's first endpoint to 1 at its second, on the reference
+	 * polygon.
+	 */
+	final double[] along0, along1;
+	/**
+	 * Edges of the overlay, <code>[2e]</code> and <code>[2e + 1]</code>: the
+	 * pieces of the first triangulation's diagonals, then those of the second's
+	 * diagonals that are not shared with the first.
+	 */
+	final int[] pieces;
+	final int pieceCount;
+
+	/**
+	 * @param n          number of polygon vertices
+	 * @param diagonals0 diagonals of the first triangulation, rows 0 to count0 -
+	 *                   1
+	 * @param count0     number of diagonals of the first triangulation
+	 * @param diagonals1 diagonals of the second triangulation
+	 * @param count1     number of diagonals of the second triangulation
+	 */
+	SteinerOverlay(final int n, final int[][] diagonals0, final int count0, final int[][] diagonals1, final int count1) {
+		if (n >= MAX_VERTICES) {
+			throw new IllegalArgumentException("polygon has " + n + " vertices; at most " + (MAX_VERTICES - 1) + " are supported");
+		}
+		this.n = n;
+
+		// neighbours of each vertex in the first triangulation, in polygon order
+		// starting after the vertex, with the diagonal of each (-1 for a side)
+		final int degrees = 2 * (n + count0);
+		final int[] from = new int[degrees];
+		final int[] to = new int[degrees];
+		final int[] label = new int[degrees];
+		for (int i = 0; i < n; ++i) {
+			this.directed(from, to, label, 2 * i, i, (i + 1) % n, -1);
+		}
+		for (int d = 0; d < count0; ++d) {
+			this.directed(from, to, label, 2 * (n + d), diagonals0[d][0], diagonals0[d][1], d);
+		}
+		// two stable counting sorts: by distance, then by source
+		final int[] byDistance = new int[degrees];
+		final int[] counts = new int[n + 1];
+		for (int e = 0; e < degrees; ++e) {
+			++counts[this.distance(from[e], to[e]) + 1];
+		}
+		for (int i = 0; i < n; ++i) {
+			counts[i + 1] += counts[i];
+		}
+		for (int e = 0; e < degrees; ++e) {
+			byDistance[counts[this.distance(from[e], to[e])]++] = e;
+		}
+		final int[] offsets = new int[n + 1];
+		for (int e = 0; e < degrees; ++e) {
+			++offsets[from[e] + 1];
+		}
+		for (int v = 0; v < n; ++v) {
+			offsets[v + 1] += offsets[v];
+		}
+		final int[] neighbours = new int[degrees];
+		final int[] diagonals = new int[degrees];
+		final int[] fill = Arrays.copyOf(offsets, n);
+		for (final int e : byDistance) {
+			final int slot = fill[from[e]]++;
+			neighbours[slot] = to[e];
+			diagonals[slot] = label[e];
+		}
+
+		// walk each diagonal of the second triangulation through the first
+		int capacity = Math.max(16, n);
+		int[] crossing0 = new int[capacity];
+		int[] crossing1 = new int[capacity];
+		final int[] walkStart = new int[count1 + 1];
+		final boolean[] shared = new boolean[count1];
+		int k = 0;
+		for (int j = 0; j < count1; ++j) {
+			walkStart[j] = k;
+			final int c = diagonals1[j][0];
+			final int d = diagonals1[j][1];
+			final int target = this.distance(c, d);
+			final int p = this.search(neighbours, offsets[c], offsets[c + 1], c, target);
+			if (this.distance(c, neighbours[p - 1]) == target) {
+				shared[j] = true;
+				continue;
+			}
+			// u and w are the ends of the crossed diagonal, d lies between them
+			int u = neighbours[p - 1];
+			int w = neighbours[p];
+			while (true) {
+				final int q = this.search(neighbours, offsets[u], offsets[u + 1], u, this.distance(u, w)) - 1;
+				if (k == capacity) {
+					capacity += capacity >> 1;
+					crossing0 = Arrays.copyOf(crossing0, capacity);
+					crossing1 = Arrays.copyOf(crossing1, capacity);
+				}
+				crossing0[k] = diagonals[q];
+				crossing1[k] = j;
+				++k;
+				// apex of the triangle beyond uw
+				final int x = neighbours[q - 1];
+				if (x == d) {
+					break;
+				}
+				if (this.distance(c, x) > target) {
+					w = x;
+				} else {
+					u = x;
+				}
+			}
+		}
+		walkStart[count1] = k;
+		this.crossings = k;
+		this.crossing0 = Arrays.copyOf(crossing0, k);
+		this.crossing1 = Arrays.copyOf(crossing1, k);
+
+		this.along0 = new double[k];
+		this.along1 = new double[k];
+		for (int s = 0; s < k; ++s) {
+			final int[] a = diagonals0[this.crossing0[s]];
+			final int[] b = diagonals1[this.crossing1[s]];
+			this.intersect(a[0], a[1], b[0], b[1], s);
+		}
+
+		// order the crossings along each diagonal of the first triangulation:
+		// crossing diagonals do not cross each other, so the one nearer the
+		// first endpoint has both ends nearer it
+		final int[] start = new int[count0 + 1];
+		for (int s = 0; s < k; ++s) {
+			++start[this.crossing0[s] + 1];
+		}
+		for (int d = 0; d < count0; ++d) {
+			start[d + 1] += start[d];
+		}
+		final long[] keys = new long[k];
+		final int[] next = Arrays.copyOf(start, count0);
+		for (int s = 0; s < k; ++s) {
+			final int d = this.crossing0[s];
+			final int a = diagonals0[d][0];
+			final int[] b = diagonals1[this.crossing1[s]];
+			final int side = this.distance(a, diagonals0[d][1]);
+			final int e1 = this.distance(a, b[0]) < side ? b[0] : b[1];
+			final int e2 = e1 == b[0] ? b[1] : b[0];
+			final int slot = next[d]++;
+			keys[slot] = (long) this.distance(a, e1) << 42 | (long) this.distance(e2, a) << 21 | (slot - start[d]);
+		}
+		final int[] sorted = new int[k];
+		for (int d = 0; d < count0; ++d) {
+			Arrays.sort(keys, start[d], start[d + 1]);
+		}
+		// recover crossing ids from the within-group indices
+		final int[] members = new int[k];
+		Arrays.fill(next, 0, count0, 0);
+		for (int s = 0; s < k; ++s) {
+			final int d = this.crossing0[s];
+			members[start[d] + next[d]++] = s;
+		}
+		for (int d = 0; d < count0; ++d) {
+			for (int i = start[d]; i < start[d + 1]; ++i) {
+				sorted[i] = members[start[d] + (int) (keys[i] & (MAX_VERTICES - 1))];
+			}
+		}
+
+		int shared1 = 0;
+		for (int j = 0; j < count1; ++j) {
+			if (shared[j]) {
+				++shared1;
+			}
+		}
+		this.pieceCount = count0 + count1 - shared1 + 2 * k;
+		this.pieces = new int[2 * this.pieceCount];
+		int e = 0;
+		for (int d = 0; d < count0; ++d) {
+			int prev = diagonals0[d][0];
+			for (int i = start[d]; i < start[d + 1]; ++i) {
+				this.pieces[e++] = prev;
+				this.pieces[e++] = prev = n + sorted[i];
+			}
+			this.pieces[e++] = prev;
+			this.pieces[e++] = diagonals0[d][1];
+		}
+		for (int j = 0; j < count1; ++j) {
+			if (shared[j]) {
+				continue;
+			}
+			int prev = diagonals1[j][0];
+			for (int s = walkStart[j]; s < walkStart[j + 1]; ++s) {
+				this.pieces[e++] = prev;
+				this.pieces[e++] = prev = n + s;
+			}
+			this.pieces[e++] = prev;
+			this.pieces[e++] = diagonals1[j][1];
+		}
+	}
+
+	private void directed(final int[] from, final int[] to, final int[] label, final int e, final int a, final int b, final int d) {
+		from[e] = a;
+		to[e] = b;
+		label[e] = d;
+		from[e + 1] = b;
+		to[e + 1] = a;
+		label[e + 1] = d;
+	}
+
+	/**
+	 * Steps from a forward to b around the polygon.
+	 */
+	private int distance(final int a, final int b) {
+		final int d = b - a;
+		return d < 0 ? d + this.n : d;
+	}
+
+	/**
+	 * First slot in [lo, hi) of the neighbours of v whose distance from v
+	 * exceeds the target.
+	 */
+	private int search(final int[] neighbours, int lo, int hi, final int v, final int target) {
+		while (lo < hi) {
+			final int mid = (lo + hi) >>> 1;
+			if (this.distance(v, neighbours[mid]) <= target) {
+				lo = mid + 1;
+			} else {
+				hi = mid;
+			}
+		}
+		return lo;
+	}
+
+	/**
+	 * Positions of crossing s along diagonals ab and cd of the regular n-gon.
+	 */
+	private void intersect(final int a, final int b, final int c, final int d, final int s) {
+		final double step = 2 * Math.PI / this.n;
+		final double ax = Math.cos(a * step), ay = Math.sin(a * step);
+		final double bx = Math.cos(b * step) - ax, by = Math.sin(b * step) - ay;
+		final double cx = Math.cos(c * step) - ax, cy = Math.sin(c * step) - ay;
+		final double dx = Math.cos(d * step) - ax - cx, dy = Math.sin(d * step) - ay - cy;
+		final double denominator = bx * dy - by * dx;
+		this.along0[s] = (cx * dy - cy * dx) / denominator;
+		this.along1[s] = (cx * by - cy * bx) / denominator;
+	}
+}
@@ -0,0 +1,68 @@
+package micycle.graphmorph;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.util.Arrays;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+/**
+ * Checks that the last frame of the convex morph reproduces the final drawing,
+ * Steiner vertices included, to within a pixel, and that preparing the final
+ * morph leaves the initial graph as it was.
+ */
+class FinalFrameTest {
+
+	private static final int TOTAL_FRAMES = 100;
+
+	static Stream<Arguments> pairs() {
+		return Stream.of(Arguments.of(GraphPairGenerator.Family.GRID, 25), Arguments.of(GraphPairGenerator.Family.TRIANGULATION, 36),
+				Arguments.of(GraphPairGenerator.Family.GRID, 100), Arguments.of(GraphPairGenerator.Family.NESTED_POLYGONS, 100),
+				Arguments.of(GraphPairGenerator.Family.STAR, 400), Arguments.of(GraphPairGenerator.Family.TREE, 2000));
+	}
+
+	@ParameterizedTest
+	@MethodSource("pairs")
+	void lastFrameMatchesFinalDrawing(final GraphPairGenerator.Family family, final int vertices) {
+		final MorphEngine engine = new MorphEngine();
+		new GraphPairGenerator(family, vertices, 0).load(engine);
+		assertTrue(engine.triangulate(), "triangulation failed");
+		engine.setBoundaryCount(4);
+		engine.prepare(MorphEngine.Mode.CONVEX, TOTAL_FRAMES);
+		final MorphFrame out = new MorphFrame();
+		engine.frame(TOTAL_FRAMES, TOTAL_FRAMES, out);
+
+		final GraphStore target = engine.graphs[1];
+		for (int v = 0; v < target.vertexCount; ++v) {
+			final int dx = out.getX()[v] - target.x[v];
+			final int dy = out.getY()[v] - target.y[v];
+			if (Math.abs(dx) > 1 || Math.abs(dy) > 1) {
+				fail("vertex " + v + " of " + target.vertexCount + " is off its final position by (" + dx + ", " + dy + ")");
+			}
+		}
+	}
+
+	@Test
+	void prepareLeavesInitialGraphUntouched() {
+		final MorphEngine engine = new MorphEngine();
+		new GraphPairGenerator(GraphPairGenerator.Family.TRIANGULATION, 100, 0).load(engine);
+		assertTrue(engine.triangulate(), "triangulation failed");
+		engine.setBoundaryCount(4);
+		final GraphStore initial = engine.graphs[0];
+		final int[] x = Arrays.copyOf(initial.x, initial.vertexCount);
+		final int[] y = Arrays.copyOf(initial.y, initial.vertexCount);
+		final int modCount = initial.modCount;
+		engine.prepare(MorphEngine.Mode.FINAL, TOTAL_FRAMES);
+
+		assertArrayEquals(x, Arrays.copyOf(initial.x, initial.vertexCount));
+		assertArrayEquals(y, Arrays.copyOf(initial.y, initial.vertexCount));
+		assertEquals(modCount, initial.modCount, "modCount");
+	}
+}
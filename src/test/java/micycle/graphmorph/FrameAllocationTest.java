@@ -0,0 +1,98 @@
+package micycle.graphmorph;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+/**
+ * Checks that computing frames, and looking up the colours their nodes are
+ * drawn in, allocates nothing once playback has warmed up, for every mode and
+ * solver, with the frame cache both disabled and evicting.
+ */
+class FrameAllocationTest {
+
+	private static final int TOTAL_FRAMES = 100;
+	private static final int WARMUP_ROUNDS = 3;
+	private static final int ROUNDS = 5;
+
+	static Stream<Arguments> settings() {
+		final Stream.Builder<Arguments> settings = Stream.builder();
+		for (final MorphEngine.Mode mode : MorphEngine.Mode.values()) {
+			for (final MorphEngine.Solver solver : MorphEngine.Solver.values()) {
+				// no cache, and a cache holding a fraction of the frames
+				settings.add(Arguments.of(mode, solver, 0L));
+				settings.add(Arguments.of(mode, solver, 1L << 16));
+			}
+		}
+		return settings.build();
+	}
+
+	@ParameterizedTest
+	@MethodSource("settings")
+	void steadyStateFramesDoNotAllocate(final MorphEngine.Mode mode, final MorphEngine.Solver solver, final long cacheBudget) {
+		final com.sun.management.ThreadMXBean threads = threadBean();
+		final MorphEngine engine = new MorphEngine();
+		new GraphPairGenerator(GraphPairGenerator.Family.TRIANGULATION, 256, 0).load(engine);
+		engine.triangulate();
+		engine.setBoundaryCount(4);
+		engine.setSolver(solver);
+		engine.setFrameCacheBudget(cacheBudget);
+		engine.prepare(mode, TOTAL_FRAMES);
+		assertSteadyStateDoesNotAllocate(threads, engine);
+	}
+
+	@Test
+	void manyColouredNodesDoNotAllocate() {
+		final com.sun.management.ThreadMXBean threads = threadBean();
+		// far more distinct node colours than a small colour cache would hold
+		final MorphEngine engine = new MorphEngine();
+		new GraphPairGenerator(GraphPairGenerator.Family.GRID, 4096, 0).load(engine);
+		engine.prepare(MorphEngine.Mode.LINEAR, TOTAL_FRAMES);
+		assertSteadyStateDoesNotAllocate(threads, engine);
+	}
+
+	private static void assertSteadyStateDoesNotAllocate(final com.sun.management.ThreadMXBean threads, final MorphEngine engine) {
+		final long thread = Thread.currentThread().getId();
+		final MorphFrame out = new MorphFrame();
+		final Palette palette = new Palette();
+		for (int r = 0; r < WARMUP_ROUNDS; ++r) {
+			play(engine, out, palette);
+		}
+
+		final long before = threads.getThreadAllocatedBytes(thread);
+		for (int r = 0; r < ROUNDS; ++r) {
+			play(engine, out, palette);
+		}
+		final long allocated = threads.getThreadAllocatedBytes(thread) - before;
+		assertEquals(0L, allocated, "bytes allocated over " + ROUNDS * (TOTAL_FRAMES + 1) + " frames");
+	}
+
+	/**
+	 * Computes every frame and looks up the colour of each node as the panel
+	 * does when it draws the frame.
+	 */
+	private static void play(final MorphEngine engine, final MorphFrame out, final Palette palette) {
+		final int nodes = engine.graphs[0].nodeCount;
+		for (int f = 0; f <= TOTAL_FRAMES; ++f) {
+			engine.frame(f, TOTAL_FRAMES, out);
+			for (int v = 0; v < nodes; ++v) {
+				palette.faded(out.getRGB()[v], 100);
+			}
+		}
+	}
+
+	private static com.sun.management.ThreadMXBean threadBean() {
+		assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean, "no per-thread allocation counter");
+		final com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		assumeTrue(threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled(),
+				"per-thread allocation counting is off");
+		return threads;
+	}
+}
@@ -0,0 +1,114 @@
+package micycle.graphmorph;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.math.BigInteger;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that large faces are legalized: every diagonal the triangulator
+ * returns is locally Delaunay.
+ */
+class PolygonTriangulatorTest {
+
+	/**
+	 * Vertices on each chain of the strip; the polygon has twice as many, and so
+	 * more than the 23,170 diagonals at which an int bound on the flips overflows.
+	 */
+	private static final int CHAIN = 11_700;
+
+	@Test
+	void largeFaceIsLocallyDelaunay() {
+		// a simple strip with a jagged bottom chain left to right and a jagged top
+		// chain right to left, kept within the range of exact incircle tests
+		final int n = 2 * CHAIN;
+		final int[] x = new int[n], y = new int[n], nodes = new int[n];
+		for (int i = 0; i < CHAIN; ++i) {
+			x[i] = i;
+			y[i] = i * i * 7 % 13;
+			x[n - 1 - i] = i;
+			y[n - 1 - i] = 100 + i * i * 5 % 11;
+		}
+		for (int i = 0; i < n; ++i) {
+			nodes[i] = i;
+		}
+		final int[][] triangles = new int[n - 3][2];
+		assertEquals(n - 3, PolygonTriangulator.triangulate(nodes, n, triangles, 0, x, y));
+
+		final Set<Long> edges = new HashSet<>();
+		final Set<Integer>[] neighbours = neighbours(n);
+		for (int i = 0; i < n; ++i) {
+			link(neighbours, edges, i, (i + 1) % n);
+		}
+		for (final int[] d : triangles) {
+			link(neighbours, edges, d[0], d[1]);
+		}
+		// the polygon is simple, so the two triangles of a diagonal are its only
+		// triangles, and the common neighbours of its ends are their far corners
+		for (final int[] d : triangles) {
+			final int p = d[0], q = d[1];
+			final int[] far = new int[2];
+			int found = 0;
+			for (final int r : neighbours[p]) {
+				if (neighbours[q].contains(r)) {
+					if (found == 2) {
+						fail("diagonal " + p + "-" + q + " has more than two triangles");
+					}
+					far[found++] = r;
+				}
+			}
+			assertEquals(2, found, "triangles of diagonal " + p + "-" + q);
+			if (isIllegal(x, y, p, q, far[0], far[1])) {
+				fail("diagonal " + p + "-" + q + " is not locally Delaunay");
+			}
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Set<Integer>[] neighbours(final int n) {
+		final Set<Integer>[] neighbours = new Set[n];
+		for (int i = 0; i < n; ++i) {
+			neighbours[i] = new HashSet<>();
+		}
+		return neighbours;
+	}
+
+	private static void link(final Set<Integer>[] neighbours, final Set<Long> edges, final int a, final int b) {
+		if (!edges.add((long) Math.min(a, b) << 32 | Math.max(a, b))) {
+			fail("edge " + a + "-" + b + " appears twice");
+		}
+		neighbours[a].add(b);
+		neighbours[b].add(a);
+	}
+
+	/**
+	 * Whether the quadrilateral of diagonal pq, with far corners r and s, is
+	 * strictly convex and has each far corner strictly inside the circumcircle
+	 * of the other triangle, in which case flipping pq would be required.
+	 */
+	private static boolean isIllegal(final int[] x, final int[] y, int p, int q, final int r, final int s) {
+		if (orient(x, y, p, q, r) < 0) {
+			final int t = p;
+			p = q;
+			q = t;
+		}
+		if (orient(x, y, p, q, r) <= 0 || orient(x, y, q, p, s) <= 0 || orient(x, y, r, p, s) <= 0 || orient(x, y, s, q, r) <= 0) {
+			return false;
+		}
+		final BigInteger adx = BigInteger.valueOf((long) x[p] - x[s]), ady = BigInteger.valueOf((long) y[p] - y[s]);
+		final BigInteger bdx = BigInteger.valueOf((long) x[q] - x[s]), bdy = BigInteger.valueOf((long) y[q] - y[s]);
+		final BigInteger cdx = BigInteger.valueOf((long) x[r] - x[s]), cdy = BigInteger.valueOf((long) y[r] - y[s]);
+		final BigInteger det = adx.pow(2).add(ady.pow(2)).multiply(bdx.multiply(cdy).subtract(cdx.multiply(bdy)))
+				.add(bdx.pow(2).add(bdy.pow(2)).multiply(cdx.multiply(ady).subtract(adx.multiply(cdy))))
+				.add(cdx.pow(2).add(cdy.pow(2)).multiply(adx.multiply(bdy).subtract(bdx.multiply(ady))));
+		return det.signum() > 0;
+	}
+
+	private static long orient(final int[] x, final int[] y, final int a, final int b, final int c) {
+		return ((long) x[b] - x[a]) * ((long) y[c] - y[a]) - ((long) y[b] - y[a]) * ((long) x[c] - x[a]);
+	}
+}
@@ -0,0 +1,41 @@
+package micycle.graphmorph;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+/**
+ * Checks that precomputed frames do not depend on the pool they were computed
+ * on, nor on frames the engine solved before.
+ */
+class PrecomputeTest {
+
+	private static final int TOTAL_FRAMES = 100;
+
+	@ParameterizedTest
+	@EnumSource(MorphEngine.Solver.class)
+	void framesDoNotDependOnSchedule(final MorphEngine.Solver solver) {
+		final MorphEngine engine = new MorphEngine();
+		new GraphPairGenerator(GraphPairGenerator.Family.TRIANGULATION, 512, 0).load(engine);
+		engine.triangulate();
+		engine.setBoundaryCount(4);
+		engine.setSolver(solver);
+		engine.prepare(MorphEngine.Mode.CONVEX, TOTAL_FRAMES);
+		final FrameSet sequential = engine.precompute(TOTAL_FRAMES, null, new ForkJoinPool(1));
+		// leave the engine's own solver at another frame
+		engine.frame(TOTAL_FRAMES * 3 / 4, TOTAL_FRAMES, new MorphFrame());
+		final FrameSet parallel = engine.precompute(TOTAL_FRAMES, null, new ForkJoinPool(4));
+
+		final MorphFrame expected = new MorphFrame();
+		final MorphFrame actual = new MorphFrame();
+		for (int f = 0; f <= TOTAL_FRAMES; ++f) {
+			sequential.copyTo(f, expected);
+			parallel.copyTo(f, actual);
+			assertArrayEquals(expected.getX(), actual.getX(), "x of frame " + f);
+			assertArrayEquals(expected.getY(), actual.getY(), "y of frame " + f);
+		}
+	}
+}
@@ -0,0 +1,39 @@
+package micycle.graphmorph;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that registries sharing an MBean server each expose their own
+ * metrics.
+ */
+class StageMetricsTest {
+
+	@Test
+	void registriesOnOneServerKeepTheirOwnBeans() throws JMException {
+		final MBeanServer server = MBeanServerFactory.newMBeanServer();
+		final StageMetrics first = new StageMetrics();
+		final StageMetrics second = new StageMetrics();
+		first.increment("frame.cacheHit", 1);
+		first.register(server);
+		second.register(server);
+		second.increment("frame.cacheHit", 5);
+		// registering again must not duplicate or replace anything
+		first.register(server);
+
+		assertEquals(1L, server.getAttribute(counterName(first), "Count"));
+		assertEquals(5L, server.getAttribute(counterName(second), "Count"));
+		assertEquals(2, server.queryNames(new ObjectName(StageMetrics.DOMAIN + ":*"), null).size());
+	}
+
+	private static ObjectName counterName(final StageMetrics metrics) throws JMException {
+		return new ObjectName(
+				StageMetrics.DOMAIN + ":type=Counter,registry=" + metrics.getId() + ",name=" + ObjectName.quote("frame.cacheHit"));
+	}
+}